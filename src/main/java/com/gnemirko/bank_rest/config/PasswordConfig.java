@@ -1,15 +1,44 @@
 package com.gnemirko.bank_rest.config;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * BCrypt с настраиваемой стоимостью ({@code app.security.password.bcrypt-strength}, 4..31).
+ * Хэш с другой стоимостью пересчитывается при успешном логине (см. {@code JpaUserDetailsService#updatePassword}),
+ * так что смена настройки не требует сброса паролей.
+ */
 @Configuration
 public class PasswordConfig {
 
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(@Value("${app.security.password.bcrypt-strength:10}") int strength) {
+        return new CostAwareBCryptPasswordEncoder(strength);
+    }
+
+    /** Считает устаревшим хэш с любой стоимостью, отличной от текущей, — и ниже, и выше. */
+    static class CostAwareBCryptPasswordEncoder extends BCryptPasswordEncoder {
+
+        private static final Pattern BCRYPT = Pattern.compile("\\A\\$2[aby]?\\$(\\d\\d)\\$[./0-9A-Za-z]{53}");
+
+        private final int strength;
+
+        CostAwareBCryptPasswordEncoder(int strength) {
+            super(strength);
+            this.strength = strength;
+        }
+
+        @Override
+        public boolean upgradeEncoding(String encodedPassword) {
+            if (encodedPassword == null) return false;
+            Matcher m = BCRYPT.matcher(encodedPassword);
+            return m.matches() && Integer.parseInt(m.group(1)) != strength;
+        }
     }
 }
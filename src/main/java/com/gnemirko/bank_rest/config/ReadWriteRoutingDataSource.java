@@ -0,0 +1,47 @@
+package com.gnemirko.bank_rest.config;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Транзакции {@code @Transactional(readOnly = true)} уходят на реплику, всё остальное — на primary.
+ * <p>
+ * Флаг readOnly выставляется уже после начала транзакции, поэтому источник должен стоять за
+ * {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}: физическое соединение
+ * берётся на первом statement-е, когда флаг уже известен.
+ * <p>
+ * Отставание реплики: после коммита пишущей транзакции пользователь на {@code pin-after-write}
+ * закрепляется за primary и видит свои изменения сразу ({@link ReplicaPins}). Здесь закрепляется
+ * пользователь запроса; записи в фоновых потоках закрепляют владельца явно из пути записи.
+ */
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+
+    enum Route { PRIMARY, REPLICA }
+
+    private final ReplicaPins pins;
+    private final Supplier<Long> currentUser;
+
+    public ReadWriteRoutingDataSource(DataSource primary, DataSource replica, ReplicaPins pins, Supplier<Long> currentUser) {
+        this.pins = pins;
+        this.currentUser = currentUser;
+        setTargetDataSources(Map.of(Route.PRIMARY, primary, Route.REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        Long user = currentUser.get();
+        if (TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return pins.isPinned(user) ? Route.PRIMARY : Route.REPLICA;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            pins.pin(user);
+        }
+        return Route.PRIMARY;
+    }
+}
@@ -0,0 +1,48 @@
+package com.gnemirko.bank_rest.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+
+/**
+ * Пользователи, чьи данные только что изменились: их readOnly-чтения на {@code pin-after-write}
+ * идут на primary ({@link ReadWriteRoutingDataSource}). Закрепляет сам путь записи по владельцу
+ * изменённых карт — запись могла пройти в потоке без пользователя (групповой коммит, асинхронное
+ * проведение перевода). Без реплики закрепление ни на что не влияет.
+ */
+@Component
+public class ReplicaPins {
+
+    private final Cache<Long, Boolean> pinned;
+
+    public ReplicaPins(@Value("${app.datasource.replica.pin-after-write:PT5S}") Duration pinAfterWrite) {
+        this.pinned = Caffeine.newBuilder()
+                .expireAfterWrite(pinAfterWrite)
+                .maximumSize(100_000)
+                .build();
+    }
+
+    /** Закрепляет пользователя после коммита текущей транзакции; вне транзакции — сразу. */
+    public void pin(Long userId) {
+        if (userId == null) return;
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    pinned.put(userId, Boolean.TRUE);
+                }
+            });
+        } else {
+            pinned.put(userId, Boolean.TRUE);
+        }
+    }
+
+    public boolean isPinned(Long userId) {
+        return userId != null && pinned.getIfPresent(userId) != null;
+    }
+}
@@ -0,0 +1,10 @@
+package com.gnemirko.bank_rest.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/** Фоновые задачи обслуживания (чистка ключей идемпотентности и т.п.). */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
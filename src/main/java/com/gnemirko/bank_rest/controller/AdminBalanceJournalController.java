@@ -0,0 +1,40 @@
+package com.gnemirko.bank_rest.controller;
+
+import com.gnemirko.bank_rest.dto.JournalBalanceResponse;
+import com.gnemirko.bank_rest.entity.Money;
+import com.gnemirko.bank_rest.service.BalanceJournal;
+import com.gnemirko.bank_rest.service.CardService;
+import com.gnemirko.bank_rest.service.JournalRebuildReport;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+@Tag(name = "Admin / Balance journal", description = "Журнал изменений баланса (роль ADMIN)")
+@SecurityRequirement(name = "BearerAuth")
+@RestController
+@RequestMapping("/api/admin/balance-journal")
+@RequiredArgsConstructor
+@PreAuthorize("hasRole('ADMIN')")
+public class AdminBalanceJournalController {
+
+    private final BalanceJournal balanceJournal;
+    private final CardService cardService;
+
+    @Operation(summary = "Баланс карты по журналу (снимок + дельты) в сравнении с текущим")
+    @GetMapping("/cards/{id}")
+    public JournalBalanceResponse balance(@Parameter(description = "ID карты") @PathVariable Long id) {
+        Money balance = cardService.get(id).getBalance();
+        return JournalBalanceResponse.of(id, balance == null ? null : balance.toBigDecimal(), balanceJournal.balanceOf(id));
+    }
+
+    @Operation(summary = "Переиграть журнал для всех карт",
+            description = "Пересобирает снимки из полного журнала параллельно по диапазонам карт и возвращает расхождения")
+    @PostMapping("/rebuild")
+    public JournalRebuildReport rebuild() {
+        return balanceJournal.rebuild();
+    }
+}
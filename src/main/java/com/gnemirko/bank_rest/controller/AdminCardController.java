@@ -1,9 +1,15 @@
 package com.gnemirko.bank_rest.controller;
 
 import com.gnemirko.bank_rest.dto.CardResponse;
+import com.gnemirko.bank_rest.dto.CardSeekPage;
+import com.gnemirko.bank_rest.dto.CardStatsResponse;
 import com.gnemirko.bank_rest.dto.CreateCardRequest;
 import com.gnemirko.bank_rest.entity.CardStatus;
+import com.gnemirko.bank_rest.service.CardExportService;
 import com.gnemirko.bank_rest.service.CardService;
+import com.gnemirko.bank_rest.service.CardStats;
+import com.gnemirko.bank_rest.service.ExportFormat;
+import com.gnemirko.bank_rest.util.IdCursor;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.ArraySchema;
@@ -16,13 +22,21 @@ import jakarta.validation.Valid;
 import jakarta.validation.constraints.DecimalMin;
 import jakarta.validation.constraints.NotNull;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ProblemDetail;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.math.BigDecimal;
+import java.time.Duration;
 
 @Tag(name = "Admin / Cards", description = "Управление картами (роль ADMIN)")
 @SecurityRequirement(name = "BearerAuth")
@@ -33,6 +47,12 @@ import java.math.BigDecimal;
 public class AdminCardController {
 
     private final CardService cardService;
+    private final CardExportService exportService;
+    private final CardStats cardStats;
+
+    /** Общий таймаут асинхронных запросов (около 30 с у Tomcat) оборвал бы ночную выгрузку на середине. */
+    @Value("${app.export.timeout:PT2H}")
+    private Duration exportTimeout;
 
     @Operation(summary = "Список карт (фильтрация + пагинация)")
     @ApiResponse(responseCode = "200", description = "OK",
@@ -47,6 +67,63 @@ public class AdminCardController {
         return cardService.listAll(ownerName, status, last4, pageable);
     }
 
+    @Operation(
+            summary = "Список карт (keyset-пагинация)",
+            description = "Те же фильтры, что у списка со страницами, но без OFFSET и подсчёта общего количества: "
+                    + "глубокие страницы стоят столько же, сколько первая. Следующая страница — с cursor из nextCursor.",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "OK",
+                            content = @Content(schema = @Schema(implementation = CardSeekPage.class))),
+                    @ApiResponse(responseCode = "422", description = "Невалидный курсор",
+                            content = @Content(schema = @Schema(implementation = ProblemDetail.class)))
+            }
+    )
+    @GetMapping("/seek")
+    public CardSeekPage seekAll(
+            @Parameter(description = "Имя владельца") @RequestParam(required = false) String ownerName,
+            @Parameter(description = "Статус карты") @RequestParam(required = false) CardStatus status,
+            @Parameter(description = "Последние 4 цифры") @RequestParam(required = false) String last4,
+            @Parameter(description = "Курсор следующей страницы") @RequestParam(required = false) String cursor,
+            @Parameter(description = "Размер страницы (1..200)") @RequestParam(defaultValue = "50") int limit
+    ) {
+        return cardService.seekAll(ownerName, status, last4, IdCursor.decode(cursor), MeTransactionController.pageSize(limit));
+    }
+
+    @Operation(
+            summary = "Выгрузка карт (NDJSON или CSV)",
+            description = "Те же фильтры, что у списка. Все карты одним потоком по курсору БД, номера маскированы; "
+                    + "память сервера не зависит от размера выгрузки."
+    )
+    @ApiResponse(responseCode = "200", description = "OK",
+            content = {@Content(mediaType = "application/x-ndjson"), @Content(mediaType = "text/csv")})
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> export(
+            @Parameter(description = "Имя владельца") @RequestParam(required = false) String ownerName,
+            @Parameter(description = "Статус карты") @RequestParam(required = false) CardStatus status,
+            @Parameter(description = "Последние 4 цифры") @RequestParam(required = false) String last4,
+            @Parameter(description = "Формат: NDJSON или CSV") @RequestParam(defaultValue = "NDJSON") ExportFormat format,
+            @Parameter(hidden = true) NativeWebRequest request
+    ) {
+        // Тело пишется асинхронно; таймаут только этого запроса, остальные живут с общим
+        WebAsyncUtils.getAsyncManager(request).getAsyncWebRequest().setTimeout(exportTimeout.toMillis());
+        return ResponseEntity.ok()
+                .contentType(format.mediaType())
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename("cards." + format.extension())
+                        .build()
+                        .toString())
+                .body(out -> exportService.export(ownerName, status, last4, format, out));
+    }
+
+    @Operation(
+            summary = "Число карт и сумма балансов по статусам",
+            description = "Из счётчиков, которые ведутся при изменении карт; периодическая сверка исправляет дрейф."
+    )
+    @GetMapping("/stats")
+    public CardStatsResponse stats() {
+        return cardStats.snapshot();
+    }
+
     @Operation(summary = "Создать карту пользователю")
     @PostMapping("/{userId}")
     public CardResponse create(
@@ -74,6 +151,16 @@ public class AdminCardController {
         return CardResponse.from(cardService.updateBalance(id, balance));
     }
 
+    @Operation(summary = "Разнести баланс горячей карты по под-балансам (ADMIN)",
+            description = "Необратимо; число шардов можно только увеличить")
+    @PatchMapping("/{id}/shards")
+    public CardResponse enableBalanceSharding(
+            @Parameter(description = "ID карты") @PathVariable Long id,
+            @Parameter(description = "Число под-балансов") @RequestParam int count
+    ) {
+        return CardResponse.from(cardService.enableBalanceSharding(id, count));
+    }
+
     @Operation(summary = "Удалить карту")
     @DeleteMapping("/{id}")
     public void delete(@Parameter(description = "ID карты") @PathVariable Long id) {
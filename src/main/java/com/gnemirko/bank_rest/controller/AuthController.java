@@ -1,6 +1,7 @@
 package com.gnemirko.bank_rest.controller;
 
 import com.gnemirko.bank_rest.security.JwtService;
+import com.gnemirko.bank_rest.security.LoginExecutor;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.*;
@@ -9,6 +10,7 @@ import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/api/auth")
@@ -17,17 +19,21 @@ public class AuthController {
 
     private final AuthenticationManager authenticationManager;
     private final JwtService jwtService;
+    private final LoginExecutor loginExecutor;
 
+    /** Проверка пароля идёт в {@link LoginExecutor}; поток запроса освобождается до её окончания. */
     @PostMapping("/login")
-    public ResponseEntity<Map<String, String>> login(@RequestBody Map<String, String> req) {
+    public CompletableFuture<ResponseEntity<Map<String, String>>> login(@RequestBody Map<String, String> req) {
         String username = req.getOrDefault("username", "");
         String password = req.getOrDefault("password", "");
 
-        Authentication auth = authenticationManager.authenticate(
-                new UsernamePasswordAuthenticationToken(username, password)
-        );
+        return loginExecutor.submit(() -> {
+            Authentication auth = authenticationManager.authenticate(
+                    new UsernamePasswordAuthenticationToken(username, password)
+            );
 
-        String token = jwtService.generateToken((UserDetails) auth.getPrincipal());
-        return ResponseEntity.ok(Map.of("token", token));
+            String token = jwtService.generateToken((UserDetails) auth.getPrincipal());
+            return ResponseEntity.ok(Map.of("token", token));
+        });
     }
-}
\ No newline at end of file
+}
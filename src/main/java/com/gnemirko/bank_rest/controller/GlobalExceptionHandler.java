@@ -1,12 +1,16 @@
 package com.gnemirko.bank_rest.controller;
 
 import com.gnemirko.bank_rest.exception.ResourceNotFoundException;
+import com.gnemirko.bank_rest.exception.ServiceOverloadedException;
 import jakarta.persistence.EntityNotFoundException;
 import jakarta.validation.ConstraintViolation;
 import jakarta.validation.ConstraintViolationException;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ProblemDetail;
+import org.springframework.http.ResponseEntity;
 import org.springframework.http.converter.HttpMessageNotReadableException;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.transaction.CannotCreateTransactionException;
@@ -125,6 +129,16 @@ public class GlobalExceptionHandler {
         return pd;
     }
 
+    /* ---------- 409: конкурентное изменение (исчерпаны повторы) ---------- */
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ProblemDetail concurrentModification(OptimisticLockingFailureException ex) {
+        var pd = ProblemDetail.forStatus(HttpStatus.CONFLICT);
+        pd.setTitle("Concurrent modification");
+        pd.setDetail("Resource was modified concurrently, retry the request");
+        common(pd);
+        return pd;
+    }
+
     /* ---------- 503: недоступность БД/транзакции ---------- */
     @ExceptionHandler(CannotCreateTransactionException.class)
     public ProblemDetail dbUnavailable(CannotCreateTransactionException ex) {
@@ -135,6 +149,19 @@ public class GlobalExceptionHandler {
         return pd;
     }
 
+    /* ---------- 503: узел перегружен (очередь логинов), повтор через Retry-After ---------- */
+    @ExceptionHandler(ServiceOverloadedException.class)
+    public ResponseEntity<ProblemDetail> overloaded(ServiceOverloadedException ex) {
+        var pd = ProblemDetail.forStatus(HttpStatus.SERVICE_UNAVAILABLE);
+        pd.setTitle("Service overloaded");
+        pd.setDetail(safe(ex.getMessage()));
+        common(pd);
+        long retryAfter = Math.max(1, ex.getRetryAfter().toSeconds());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfter))
+                .body(pd);
+    }
+
     /* ---------- 500: fallback ---------- */
     @ExceptionHandler(Exception.class)
     public ProblemDetail any(Exception ex) {
@@ -1,11 +1,15 @@
 package com.gnemirko.bank_rest.controller;
 
 import com.gnemirko.bank_rest.dto.CardResponse;
-import com.gnemirko.bank_rest.entity.Card;
+import com.gnemirko.bank_rest.dto.CardSliceResponse;
 import com.gnemirko.bank_rest.entity.CardStatus;
-import com.gnemirko.bank_rest.repository.CardRepository;
 import com.gnemirko.bank_rest.security.Auth;
-import com.gnemirko.bank_rest.util.CardSpecification;
+import com.gnemirko.bank_rest.service.CardService;
+import com.gnemirko.bank_rest.service.CardViewCache;
+import com.gnemirko.bank_rest.service.CountMode;
+import com.gnemirko.bank_rest.service.TaggedView;
+import com.gnemirko.bank_rest.service.TransactionHistoryService;
+import com.gnemirko.bank_rest.util.SeekCursor;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.ArraySchema;
@@ -15,12 +19,20 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
-import org.springframework.data.jpa.domain.Specification;
+import org.springframework.http.ETag;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ProblemDetail;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.util.DigestUtils;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.nio.charset.StandardCharsets;
 
 @Tag(name = "User / Cards", description = "Просмотр своих карт и деталей (роль USER)")
 @SecurityRequirement(name = "BearerAuth")
@@ -30,51 +42,114 @@ import org.springframework.web.bind.annotation.*;
 @PreAuthorize("hasRole('USER')")
 public class MeCardController {
 
-    private final CardRepository cardRepository;
+    private final CardService cardService;
+    private final CardViewCache cardViews;
+    private final TransactionHistoryService historyService;
+
     @Operation(
             summary = "Мои карты (фильтр + пагинация)",
+            description = "По умолчанию без подсчёта общего количества (только hasNext). "
+                    + "count=ESTIMATED — оценка по статистике планировщика, count=EXACT — точный count(*). "
+                    + "Ответ с ETag; при совпадении If-None-Match — 304 без чтения карт.",
             responses = {
                     @ApiResponse(responseCode = "200", description = "OK",
-                            content = @Content(schema = @Schema(implementation = AdminCardController.PageCardResponse.class))),
+                            content = @Content(schema = @Schema(implementation = CardSliceResponse.class))),
+                    @ApiResponse(responseCode = "304", description = "Не изменились с If-None-Match", content = @Content),
                     @ApiResponse(responseCode = "403", description = "Forbidden",
                             content = @Content(schema = @Schema(implementation = ProblemDetail.class)))
             }
     )
     @GetMapping
-    public Page<CardResponse> myCards(
+    public ResponseEntity<CardSliceResponse> myCards(
             @Parameter(description = "Статус карты") @RequestParam(required = false) CardStatus status,
             @Parameter(description = "Последние 4 цифры", example = "1234") @RequestParam(required = false) String last4,
-            @Parameter(hidden = true) Pageable pageable
+            @Parameter(description = "Подсчёт общего количества: NONE, ESTIMATED или EXACT") @RequestParam(defaultValue = "NONE") CountMode count,
+            @Parameter(hidden = true) Pageable pageable,
+            @Parameter(hidden = true) WebRequest request
     ) {
-        Long me = Auth.currentUserId();
-
-        Specification<Card> spec = Specification.allOf(
-                CardSpecification.hasStatus(status),
-                CardSpecification.hasLast4(last4),
-                (root, query, cb) -> cb.equal(root.get("owner").get("id"), me)
-        );
-
-        return cardRepository.findAll(spec, pageable).map(CardResponse::from);
+        Long ownerId = Auth.currentUserId();
+        String query = String.join("|", String.valueOf(status), String.valueOf(last4), count.name(), pageable.toString());
+        String cardsTag = cardService.ownedCardsTag(ownerId).orElse(null);
+        String etag = cardsTag == null ? null : queryTag(cardsTag, query);
+        if (etag != null && notModified(request, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+        // кэш отдаёт страницу, только если её отпечаток совпадает с текущим
+        TaggedView<CardSliceResponse> page = cardViews.ownedCards(ownerId, query, cardsTag,
+                () -> cardService.listOwned(ownerId, status, last4, pageable, count));
+        return withTag(page.view(), page.tag() == null ? null : queryTag(page.tag(), query));
     }
 
     @Operation(
             summary = "Детали моей карты",
+            description = "Ответ с ETag (версия и баланс карты); при совпадении If-None-Match — 304 без загрузки карты.",
             responses = {
                     @ApiResponse(responseCode = "200", description = "OK", content = @Content(schema = @Schema(implementation = CardResponse.class))),
+                    @ApiResponse(responseCode = "304", description = "Не изменилась с If-None-Match", content = @Content),
                     @ApiResponse(responseCode = "403", description = "Нет доступа (не ваша карта)", content = @Content(schema = @Schema(implementation = ProblemDetail.class))),
                     @ApiResponse(responseCode = "404", description = "Карта не найдена", content = @Content(schema = @Schema(implementation = ProblemDetail.class)))
             }
     )
     @GetMapping("/{id}")
-    public CardResponse myCard(@PathVariable Long id) {
-        Card c = cardRepository.findById(id)
-                .orElseThrow(() -> new com.gnemirko.bank_rest.exception.ResourceNotFoundException("Card: " + id));
+    public ResponseEntity<CardResponse> myCard(@PathVariable Long id, @Parameter(hidden = true) WebRequest request) {
+        Long ownerId = Auth.currentUserId();
+        // короткий путь 304 — по отпечатку без загрузки карты; 200 несёт ETag того снимка, из которого тело
+        String etag = cardService.ownedCardTag(ownerId, id).orElse(null);
+        if (etag != null && notModified(request, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+        TaggedView<CardResponse> card = cardViews.ownedCard(ownerId, id, etag, () -> cardService.getOwned(ownerId, id));
+        return withTag(card.view(), card.tag());
+    }
 
-        Long me = Auth.currentUserId();
-        if (c.getOwner() == null || !me.equals(c.getOwner().getId())) {
-            throw new org.springframework.security.access.AccessDeniedException("Forbidden");
+    @Operation(
+            summary = "История переводов по моей карте (keyset-пагинация)",
+            description = "От новых к старым. Следующая страница — с параметром cursor из поля nextCursor ответа.",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "OK",
+                            content = @Content(schema = @Schema(implementation = MeTransactionController.HistoryPage.class))),
+                    @ApiResponse(responseCode = "403", description = "Нет доступа (не ваша карта)", content = @Content(schema = @Schema(implementation = ProblemDetail.class))),
+                    @ApiResponse(responseCode = "404", description = "Карта не найдена", content = @Content(schema = @Schema(implementation = ProblemDetail.class))),
+                    @ApiResponse(responseCode = "422", description = "Невалидный курсор", content = @Content(schema = @Schema(implementation = ProblemDetail.class)))
+            }
+    )
+    @GetMapping("/{id}/transactions")
+    public ResponseEntity<StreamingResponseBody> cardTransactions(
+            @Parameter(description = "ID карты") @PathVariable Long id,
+            @Parameter(description = "Курсор следующей страницы") @RequestParam(required = false) String cursor,
+            @Parameter(description = "Размер страницы (1..200)") @RequestParam(defaultValue = "50") int limit
+    ) {
+        historyService.checkCardAccess(Auth.currentUserId(), id);
+        SeekCursor after = SeekCursor.decode(cursor);
+        int size = MeTransactionController.pageSize(limit);
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(out -> historyService.writeCardHistory(id, after, size, out));
+    }
+
+    /** Отпечаток карт плюс параметры запроса: у каждой страницы и фильтра свой ETag. */
+    private static String queryTag(String cardsTag, String query) {
+        return DigestUtils.md5DigestAsHex((cardsTag + "|" + query).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Совпадает ли If-None-Match с текущим отпечатком. Без {@code checkNotModified}: тот пишет ETag в ответ
+     * сразу, и при несовпадении 200 ушёл бы с отпечатком, прочитанным до тела, а не с отпечатком тела.
+     */
+    private static boolean notModified(WebRequest request, String etag) {
+        String[] values = request.getHeaderValues(HttpHeaders.IF_NONE_MATCH);
+        if (values == null) return false;
+        ETag current = ETag.create(etag);
+        for (String value : values) {
+            for (ETag candidate : ETag.parse(value)) {
+                if (candidate.isWildcard() || candidate.compare(current, false)) return true;
+            }
         }
-        return CardResponse.from(c);
+        return false;
+    }
+
+    private static <T> ResponseEntity<T> withTag(T body, String etag) {
+        return etag == null ? ResponseEntity.ok(body) : ResponseEntity.ok().eTag(etag).body(body);
     }
 
     @Schema(name = "PageCardResponse")
@@ -0,0 +1,71 @@
+package com.gnemirko.bank_rest.controller;
+
+import com.gnemirko.bank_rest.dto.TransferResponse;
+import com.gnemirko.bank_rest.security.Auth;
+import com.gnemirko.bank_rest.service.TransactionHistoryService;
+import com.gnemirko.bank_rest.util.SeekCursor;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.http.ProblemDetail;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+@Tag(name = "User / Transactions", description = "История переводов (роль USER)")
+@SecurityRequirement(name = "BearerAuth")
+@RestController
+@RequestMapping("/api/me/transactions")
+@RequiredArgsConstructor
+@PreAuthorize("hasRole('USER')")
+public class MeTransactionController {
+
+    static final int MAX_PAGE_SIZE = 200;
+
+    private final TransactionHistoryService historyService;
+
+    @Operation(
+            summary = "История моих переводов (keyset-пагинация)",
+            description = "От новых к старым. Следующая страница — с параметром cursor из поля nextCursor ответа.",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "OK",
+                            content = @Content(schema = @Schema(implementation = HistoryPage.class))),
+                    @ApiResponse(responseCode = "422", description = "Невалидный курсор", content = @Content(schema = @Schema(implementation = ProblemDetail.class)))
+            }
+    )
+    @GetMapping
+    public ResponseEntity<StreamingResponseBody> myTransactions(
+            @Parameter(description = "Курсор следующей страницы") @RequestParam(required = false) String cursor,
+            @Parameter(description = "Размер страницы (1..200)") @RequestParam(defaultValue = "50") int limit
+    ) {
+        Long me = Auth.currentUserId();
+        SeekCursor after = SeekCursor.decode(cursor);
+        int size = pageSize(limit);
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(out -> historyService.writeUserHistory(me, after, size, out));
+    }
+
+    static int pageSize(int limit) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        return limit;
+    }
+
+    @Schema(name = "TransactionHistoryPage")
+    static class HistoryPage {
+        @ArraySchema(schema = @Schema(implementation = TransferResponse.class))
+        public java.util.List<TransferResponse> items;
+        @Schema(description = "Курсор следующей страницы; отсутствует на последней")
+        public String nextCursor;
+    }
+}
@@ -1,7 +1,15 @@
 package com.gnemirko.bank_rest.controller;
 
+import com.gnemirko.bank_rest.dto.BatchTransferRequest;
+import com.gnemirko.bank_rest.dto.BatchTransferResponse;
+import com.gnemirko.bank_rest.dto.TransferResponse;
+import com.gnemirko.bank_rest.entity.Transaction;
 import com.gnemirko.bank_rest.security.Auth;
+import com.gnemirko.bank_rest.service.AsyncTransferService;
+import com.gnemirko.bank_rest.service.BatchMode;
 import com.gnemirko.bank_rest.service.CardService;
+import com.gnemirko.bank_rest.service.IdempotentTransferService;
+import com.gnemirko.bank_rest.service.TransferCommand;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -15,10 +23,13 @@ import jakarta.validation.constraints.NotNull;
 import lombok.Data;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ProblemDetail;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
 import java.math.BigDecimal;
+import java.net.URI;
+import java.util.List;
 
 @Tag(name = "User / Transfers", description = "Переводы между своими картами (роль USER)")
 @SecurityRequirement(name = "BearerAuth")
@@ -28,21 +39,83 @@ import java.math.BigDecimal;
 @PreAuthorize("hasRole('USER')")
 public class TransferController {
 
+    private final IdempotentTransferService transferService;
+    private final AsyncTransferService asyncTransferService;
     private final CardService cardService;
 
     @Operation(
             summary = "Перевести деньги между своими картами",
             responses = {
-                    @ApiResponse(responseCode = "200", description = "OK"),
+                    @ApiResponse(responseCode = "200", description = "OK (или исходный результат при повторе с тем же Idempotency-Key)",
+                            content = @Content(schema = @Schema(implementation = TransferResponse.class))),
                     @ApiResponse(responseCode = "400", description = "Невалидные параметры", content = @Content(schema = @Schema(implementation = ProblemDetail.class))),
                     @ApiResponse(responseCode = "403", description = "Нет доступа к карте", content = @Content(schema = @Schema(implementation = ProblemDetail.class))),
-                    @ApiResponse(responseCode = "422", description = "Бизнес-ошибка (недостаточно средств, блокировка, просрочка)", content = @Content(schema = @Schema(implementation = ProblemDetail.class)))
+                    @ApiResponse(responseCode = "422", description = "Бизнес-ошибка (недостаточно средств, блокировка, просрочка) или ключ уже использован с другим запросом", content = @Content(schema = @Schema(implementation = ProblemDetail.class)))
             }
     )
     @PostMapping
-    public void transfer(@Valid @RequestBody TransferRequest req) {
+    public TransferResponse transfer(
+            @Parameter(description = "Ключ идемпотентности: повтор с тем же ключом вернёт исходный результат")
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
+            @Valid @RequestBody TransferRequest req
+    ) {
         Long userId = Auth.currentUserId();
-        cardService.transfer(req.fromCardId, req.toCardId, req.amount);
+        return transferService.transfer(userId, idempotencyKey, req.fromCardId, req.toCardId, req.amount);
+    }
+
+    @Operation(
+            summary = "Принять перевод к асинхронному проведению",
+            description = "Перевод сохраняется в статусе PENDING и проводится в фоне; переводы по одной карте "
+                    + "проводятся в порядке приёма. Итог — через GET /api/me/transfers/{id}.",
+            responses = {
+                    @ApiResponse(responseCode = "202", description = "Принят",
+                            content = @Content(schema = @Schema(implementation = TransferResponse.class))),
+                    @ApiResponse(responseCode = "400", description = "Невалидные параметры", content = @Content(schema = @Schema(implementation = ProblemDetail.class))),
+                    @ApiResponse(responseCode = "403", description = "Нет доступа к карте", content = @Content(schema = @Schema(implementation = ProblemDetail.class)))
+            }
+    )
+    @PostMapping("/async")
+    public ResponseEntity<TransferResponse> submit(@Valid @RequestBody TransferRequest req) {
+        Long userId = Auth.currentUserId();
+        Transaction pending = asyncTransferService.submit(userId, req.fromCardId, req.toCardId, req.amount);
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/me/transfers/" + pending.getId()))
+                .body(TransferResponse.from(pending));
+    }
+
+    @Operation(
+            summary = "Статус перевода",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "OK",
+                            content = @Content(schema = @Schema(implementation = TransferResponse.class))),
+                    @ApiResponse(responseCode = "404", description = "Перевод не найден", content = @Content(schema = @Schema(implementation = ProblemDetail.class)))
+            }
+    )
+    @GetMapping("/{id}")
+    public TransferResponse status(@Parameter(description = "ID перевода") @PathVariable Long id) {
+        return TransferResponse.from(asyncTransferService.get(Auth.currentUserId(), id));
+    }
+
+    @Operation(
+            summary = "Пакет переводов между своими картами в одной транзакции",
+            description = "Все карты пакета блокируются один раз в порядке id. "
+                    + "ALL_OR_NOTHING (по умолчанию) откатывает пакет при первой ошибке, BEST_EFFORT пропускает ошибочные позиции.",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "OK",
+                            content = @Content(schema = @Schema(implementation = BatchTransferResponse.class))),
+                    @ApiResponse(responseCode = "400", description = "Невалидные параметры", content = @Content(schema = @Schema(implementation = ProblemDetail.class))),
+                    @ApiResponse(responseCode = "403", description = "Нет доступа к карте", content = @Content(schema = @Schema(implementation = ProblemDetail.class))),
+                    @ApiResponse(responseCode = "422", description = "Ошибка позиции в режиме ALL_OR_NOTHING", content = @Content(schema = @Schema(implementation = ProblemDetail.class)))
+            }
+    )
+    @PostMapping("/batch")
+    public BatchTransferResponse transferBatch(@Valid @RequestBody BatchTransferRequest req) {
+        Long userId = Auth.currentUserId();
+        BatchMode mode = req.mode() != null ? req.mode() : BatchMode.ALL_OR_NOTHING;
+        List<TransferCommand> commands = req.items().stream()
+                .map(i -> new TransferCommand(userId, i.fromCardId(), i.toCardId(), i.amount()))
+                .toList();
+        return BatchTransferResponse.from(mode, cardService.transferBatch(commands, mode));
     }
 
     @Data
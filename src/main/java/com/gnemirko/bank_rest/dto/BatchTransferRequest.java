@@ -0,0 +1,30 @@
+package com.gnemirko.bank_rest.dto;
+
+import com.gnemirko.bank_rest.service.BatchMode;
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+@Schema(name = "BatchTransferRequest", description = "Пакет переводов между своими картами в одной транзакции")
+public record BatchTransferRequest(
+        @Schema(description = "ALL_OR_NOTHING — любая ошибка откатывает пакет; BEST_EFFORT — ошибочные позиции пропускаются",
+                example = "ALL_OR_NOTHING")
+        BatchMode mode,
+
+        @Schema(description = "Позиции пакета, применяются по порядку")
+        @NotEmpty @Size(max = 1000, message = "Batch must contain at most 1000 transfers")
+        List<@Valid @NotNull Item> items
+) {
+    @Schema(name = "BatchTransferItem")
+    public record Item(
+            @Schema(description = "ID карты-источника", example = "10") @NotNull Long fromCardId,
+            @Schema(description = "ID карты-получателя", example = "20") @NotNull Long toCardId,
+            @Schema(description = "Сумма перевода", example = "100.00") @NotNull @DecimalMin("0.01") BigDecimal amount
+    ) {}
+}
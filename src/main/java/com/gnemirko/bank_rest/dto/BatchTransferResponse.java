@@ -0,0 +1,33 @@
+package com.gnemirko.bank_rest.dto;
+
+import com.gnemirko.bank_rest.service.BatchMode;
+import com.gnemirko.bank_rest.service.TransferOutcome;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.List;
+
+@Schema(name = "BatchTransferResponse", description = "Результаты пакета переводов по позициям")
+public record BatchTransferResponse(
+        @Schema(description = "Режим пакета", example = "BEST_EFFORT") String mode,
+        @Schema(description = "Успешных позиций", example = "9") int succeeded,
+        @Schema(description = "Отклонённых позиций", example = "1") int failed,
+        @Schema(description = "Результат каждой позиции в порядке запроса") List<ItemResult> results
+) {
+    @Schema(name = "BatchTransferItemResult")
+    public record ItemResult(
+            @Schema(description = "Номер позиции в запросе", example = "0") int index,
+            @Schema(description = "COMPLETED или FAILED", example = "COMPLETED") String status,
+            @Schema(description = "ID перевода в журнале", example = "1001") Long transactionId,
+            @Schema(description = "Причина отказа", example = "Insufficient funds") String error
+    ) {}
+
+    public static BatchTransferResponse from(BatchMode mode, List<TransferOutcome> outcomes) {
+        List<ItemResult> results = outcomes.stream()
+                .map(o -> o.succeeded()
+                        ? new ItemResult(o.index(), "COMPLETED", o.transaction().getId(), null)
+                        : new ItemResult(o.index(), "FAILED", null, o.error()))
+                .toList();
+        int ok = (int) outcomes.stream().filter(TransferOutcome::succeeded).count();
+        return new BatchTransferResponse(mode.name(), ok, outcomes.size() - ok, results);
+    }
+}
@@ -1,5 +1,7 @@
 package com.gnemirko.bank_rest.dto;
 import com.gnemirko.bank_rest.entity.Card;
+import com.gnemirko.bank_rest.entity.Money;
+import com.gnemirko.bank_rest.entity.Role;
 import com.gnemirko.bank_rest.entity.User;
 import io.swagger.v3.oas.annotations.media.Schema;
 
@@ -11,19 +13,40 @@ import java.sql.Date;
 public record CardResponse(
         @Schema(description = "ID карты", example = "100") Long id,
         @Schema(description = "Маскированный номер карты", example = "**** **** **** 1234") String maskedNumber,
-        @Schema(description = "Владелец карты") User owner,
+        @Schema(description = "Владелец карты") Owner owner,
         @Schema(description = "Срок действия карты", example = "2030-12-01") Date expiry,
         @Schema(description = "Статус карты", example = "ACTIVE") String status,
         @Schema(description = "Баланс карты", example = "123.45") BigDecimal balance
 ) {
+    /** Владелец в ответе: те же поля, что отдавались из сущности {@link User}, без самой сущности. */
+    @Schema(name = "CardOwner")
+    public record Owner(Long id, Role role, String name, boolean enabled) {
+        static Owner from(User user) {
+            return user == null ? null : new Owner(user.getId(), user.getRole(), user.getName(), user.isEnabled());
+        }
+    }
+
     public static CardResponse from(Card card) {
         return new CardResponse(
                 card.getId(),
                 mask(card.getNumber()),
-                card.getOwner(),
+                Owner.from(card.getOwner()),
                 card.getExpiryDate(),
                 card.getStatus().name(),
-                card.getBalance()
+                card.getBalance() == null ? null : card.getBalance().toBigDecimal()
+        );
+    }
+
+    public static CardResponse from(CardRow row) {
+        Money balance = row.shardedBalance() != null ? Money.of(row.shardedBalance()) : row.balance();
+        return new CardResponse(
+                row.id(),
+                mask(row.number()),
+                row.ownerId() == null ? null
+                        : new Owner(row.ownerId(), row.ownerRole(), row.ownerName(), Boolean.TRUE.equals(row.ownerEnabled())),
+                row.expiryDate(),
+                row.status().name(),
+                balance == null ? null : balance.toBigDecimal()
         );
     }
 
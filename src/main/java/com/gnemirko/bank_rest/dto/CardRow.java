@@ -0,0 +1,27 @@
+package com.gnemirko.bank_rest.dto;
+
+import com.gnemirko.bank_rest.entity.CardStatus;
+import com.gnemirko.bank_rest.entity.Money;
+import com.gnemirko.bank_rest.entity.Role;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+
+/**
+ * Строка списка карт: только колонки, нужные {@link CardResponse}, одним SELECT с join владельца.
+ * Не managed-сущность — Hibernate не держит для неё снимков dirty-checking.
+ * {@code shardedBalance} заполнен только у шардированной карты.
+ */
+public record CardRow(
+        Long id,
+        String number,
+        Date expiryDate,
+        CardStatus status,
+        Money balance,
+        BigDecimal shardedBalance,
+        Long ownerId,
+        Role ownerRole,
+        String ownerName,
+        Boolean ownerEnabled
+) {
+}
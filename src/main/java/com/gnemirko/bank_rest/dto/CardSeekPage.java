@@ -0,0 +1,12 @@
+package com.gnemirko.bank_rest.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.List;
+
+@Schema(name = "CardSeekPage", description = "Страница карт keyset-пагинации (без общего количества)")
+public record CardSeekPage(
+        @Schema(description = "Карты по возрастанию id") List<CardResponse> items,
+        @Schema(description = "Курсор следующей страницы; null — страница последняя") String nextCursor
+) {
+}
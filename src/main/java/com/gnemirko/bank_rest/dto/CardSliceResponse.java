@@ -0,0 +1,16 @@
+package com.gnemirko.bank_rest.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.List;
+
+@Schema(name = "CardSliceResponse", description = "Страница карт; общее количество — только по запросу")
+public record CardSliceResponse(
+        @Schema(description = "Карты страницы") List<CardResponse> content,
+        @Schema(description = "Номер страницы", example = "0") int number,
+        @Schema(description = "Размер страницы", example = "20") int size,
+        @Schema(description = "Есть ли следующая страница") boolean hasNext,
+        @Schema(description = "Общее количество; null при count=NONE") Long totalElements,
+        @Schema(description = "totalElements — оценка планировщика, а не точное число") boolean totalEstimated
+) {
+}
@@ -0,0 +1,21 @@
+package com.gnemirko.bank_rest.dto;
+
+import com.gnemirko.bank_rest.entity.CardStatus;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+@Schema(name = "CardStatsResponse", description = "Число карт и сумма балансов по статусам")
+public record CardStatsResponse(
+        @Schema(description = "По статусам (все статусы, в т.ч. с нулём карт)") List<StatusStats> byStatus,
+        @Schema(description = "Всего карт", example = "1200") long totalCards,
+        @Schema(description = "Сумма балансов всех карт", example = "154000.00") BigDecimal totalBalance
+) {
+    @Schema(name = "CardStatusStats")
+    public record StatusStats(
+            @Schema(description = "Статус", example = "ACTIVE") CardStatus status,
+            @Schema(description = "Число карт", example = "1000") long cards,
+            @Schema(description = "Сумма балансов", example = "150000.00") BigDecimal balance
+    ) {}
+}
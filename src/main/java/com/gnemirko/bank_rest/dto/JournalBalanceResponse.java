@@ -0,0 +1,18 @@
+package com.gnemirko.bank_rest.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.math.BigDecimal;
+
+@Schema(name = "JournalBalanceResponse", description = "Баланс карты и баланс, восстановленный из журнала")
+public record JournalBalanceResponse(
+        @Schema(description = "ID карты", example = "10") Long cardId,
+        @Schema(description = "Текущий баланс карты", example = "100.00") BigDecimal cardBalance,
+        @Schema(description = "Снимок + несвёрнутые дельты", example = "100.00") BigDecimal journalBalance,
+        @Schema(description = "Совпадают ли балансы") boolean consistent
+) {
+    public static JournalBalanceResponse of(Long cardId, BigDecimal cardBalance, BigDecimal journalBalance) {
+        BigDecimal stored = cardBalance == null ? BigDecimal.ZERO : cardBalance;
+        return new JournalBalanceResponse(cardId, stored, journalBalance, stored.compareTo(journalBalance) == 0);
+    }
+}
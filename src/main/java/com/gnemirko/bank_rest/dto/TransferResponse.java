@@ -0,0 +1,30 @@
+package com.gnemirko.bank_rest.dto;
+
+import com.gnemirko.bank_rest.entity.Transaction;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+@Schema(name = "TransferResponse", description = "Результат перевода (запись журнала)")
+public record TransferResponse(
+        @Schema(description = "ID перевода в журнале", example = "1001") Long transactionId,
+        @Schema(description = "ID карты-источника", example = "10") Long fromCardId,
+        @Schema(description = "ID карты-получателя", example = "20") Long toCardId,
+        @Schema(description = "Сумма перевода", example = "100.00") BigDecimal amount,
+        @Schema(description = "Статус перевода: PENDING, COMPLETED или FAILED", example = "COMPLETED") String status,
+        @Schema(description = "Время создания перевода") Instant createdAt,
+        @Schema(description = "Причина отказа (для FAILED)", example = "Insufficient funds") String failureReason
+) {
+    public static TransferResponse from(Transaction tx) {
+        return new TransferResponse(
+                tx.getId(),
+                tx.getFromCardId(),
+                tx.getToCardId(),
+                tx.getAmount() == null ? null : tx.getAmount().toBigDecimal(),
+                tx.getStatus().name(),
+                tx.getCreatedAt(),
+                tx.getFailureReason()
+        );
+    }
+}
@@ -0,0 +1,45 @@
+package com.gnemirko.bank_rest.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+/**
+ * Изменение баланса карты (таблица {@code card_balance_journal}).
+ * <p>
+ * Журнал append-only: каждое изменение баланса — отдельная строка с дельтой. Компактор сворачивает
+ * строки в {@code card_balance_snapshot} и помечает их {@code compacted}, но не удаляет, поэтому
+ * баланс любой карты можно переиграть с нуля. Идентификаторы — пулом из {@code card_balance_journal_seq}.
+ */
+@Entity
+@Getter @Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Table(name = "card_balance_journal")
+public class BalanceJournalEntry {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "card_balance_journal_seq")
+    @SequenceGenerator(name = "card_balance_journal_seq", sequenceName = "card_balance_journal_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "card_id", nullable = false, updatable = false)
+    private Long cardId;
+
+    @Column(nullable = false, updatable = false)
+    @Convert(converter = MoneyConverter.class)
+    private Money delta;
+
+    /** Перевод, породивший дельту; null для ручной установки баланса и открытия карты. */
+    @Column(name = "transaction_id", updatable = false)
+    private Long transactionId;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private Instant createdAt;
+
+    @Builder.Default
+    @Column(nullable = false)
+    private boolean compacted = false;
+}
@@ -2,6 +2,7 @@ package com.gnemirko.bank_rest.entity;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Formula;
 
 import java.math.BigDecimal;
 import java.sql.Date;
@@ -21,14 +22,54 @@ public class Card {
 
     private String number;
 
+    /** Последние 4 символа номера — для поиска по индексу равенством вместо {@code number LIKE '%1234'}. */
+    @Column(length = 4)
+    private String last4;
+
     @ManyToOne
     @JoinColumn(name = "user_id")
     private User owner;
 
     private Date expiryDate;
 
-    private BigDecimal balance;
+    @Convert(converter = MoneyConverter.class)
+    private Money balance;
+
+    /**
+     * Число под-балансов в {@code card_balance_shard}; 0 — обычная карта с балансом в колонке {@code balance}.
+     * Для «горячих» карт баланс разнесён по строкам-шардам, чтобы зачисления не сериализовались на строке карты.
+     */
+    @Builder.Default
+    @Column(name = "balance_shards", nullable = false)
+    private int balanceShards = 0;
+
+    /** Сумма шардов на момент чтения; для обычной карты null. */
+    @Getter(AccessLevel.NONE)
+    @Formula("(select sum(s.balance) from card_balance_shard s where s.card_id = id)")
+    private BigDecimal shardedBalance;
 
     @Enumerated(EnumType.STRING)
     private CardStatus status;
+
+    @Version
+    private Long version;
+
+    @PrePersist
+    @PreUpdate
+    void syncLast4() {
+        last4 = last4Of(number);
+    }
+
+    public static String last4Of(String number) {
+        return number == null || number.length() < 4 ? number : number.substring(number.length() - 4);
+    }
+
+    public boolean isSharded() {
+        return balanceShards > 0;
+    }
+
+    /** Баланс карты: для шардированной карты — сумма под-балансов. */
+    public Money getBalance() {
+        return isSharded() && shardedBalance != null ? Money.of(shardedBalance) : balance;
+    }
 }
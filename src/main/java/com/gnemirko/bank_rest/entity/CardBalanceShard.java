@@ -0,0 +1,36 @@
+package com.gnemirko.bank_rest.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.io.Serializable;
+
+/** Под-баланс шардированной карты ({@link Card#getBalanceShards()} строк на карту). */
+@Entity
+@Getter @Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@IdClass(CardBalanceShard.Key.class)
+@Table(name = "card_balance_shard")
+public class CardBalanceShard {
+
+    @Id
+    @Column(name = "card_id")
+    private Long cardId;
+
+    @Id
+    @Column(name = "shard_no")
+    private Integer shardNo;
+
+    @Column(nullable = false)
+    @Convert(converter = MoneyConverter.class)
+    private Money balance;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private Long cardId;
+        private Integer shardNo;
+    }
+}
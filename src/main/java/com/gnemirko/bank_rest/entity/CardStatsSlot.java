@@ -0,0 +1,42 @@
+package com.gnemirko.bank_rest.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+
+/**
+ * Счётчики карт одного статуса, разнесённые по {@code slot} (id карты по модулю числа слотов):
+ * параллельные изменения разных карт одного статуса обновляют разные строки.
+ * Итог по статусу — сумма его слотов.
+ */
+@Entity
+@Getter @Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@IdClass(CardStatsSlot.Key.class)
+@Table(name = "card_stats")
+public class CardStatsSlot {
+
+    @Id
+    @Enumerated(EnumType.STRING)
+    private CardStatus status;
+
+    @Id
+    private Integer slot;
+
+    @Column(name = "card_count", nullable = false)
+    private long cardCount;
+
+    @Column(name = "total_balance", nullable = false)
+    private BigDecimal totalBalance;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private CardStatus status;
+        private Integer slot;
+    }
+}
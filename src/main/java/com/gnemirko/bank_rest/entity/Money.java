@@ -0,0 +1,86 @@
+package com.gnemirko.bank_rest.entity;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Денежная сумма в копейках ({@code long}, 2 знака после запятой, как у колонок NUMERIC(19,2)).
+ * <p>
+ * Сравнение и арифметика на горячем пути перевода идут по примитиву без аллокаций BigDecimal;
+ * переполнение проверяется ({@link Math#addExact}) и отдаётся как {@link IllegalArgumentException}.
+ * BigDecimal остаётся на границах: JSON и колонки БД (через {@link MoneyConverter}); балансовые
+ * native-запросы получают {@link #minor()} и переводят копейки в NUMERIC сами.
+ */
+public record Money(long minor) implements Comparable<Money> {
+
+    public static final int SCALE = 2;
+    public static final Money ZERO = new Money(0);
+
+    public static Money ofMinor(long minor) {
+        return minor == 0 ? ZERO : new Money(minor);
+    }
+
+    /** Сумма с точностью до копейки; "1.500" допустимо, "1.005" — нет. */
+    public static Money of(BigDecimal value) {
+        if (value == null) throw new IllegalArgumentException("Amount is required");
+        try {
+            return ofMinor(value.setScale(SCALE, RoundingMode.UNNECESSARY).unscaledValue().longValueExact());
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("Amount must have at most " + SCALE + " decimal places and fit into 19 digits");
+        }
+    }
+
+    public static Money of(String value) {
+        return of(new BigDecimal(value));
+    }
+
+    public Money plus(Money other) {
+        try {
+            return ofMinor(Math.addExact(minor, other.minor));
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("Amount overflow");
+        }
+    }
+
+    public Money minus(Money other) {
+        try {
+            return ofMinor(Math.subtractExact(minor, other.minor));
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("Amount overflow");
+        }
+    }
+
+    public Money negate() {
+        try {
+            return ofMinor(Math.negateExact(minor));
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("Amount overflow");
+        }
+    }
+
+    public int signum() {
+        return Long.signum(minor);
+    }
+
+    public boolean isPositive() {
+        return minor > 0;
+    }
+
+    public boolean lessThan(Money other) {
+        return minor < other.minor;
+    }
+
+    public BigDecimal toBigDecimal() {
+        return BigDecimal.valueOf(minor, SCALE);
+    }
+
+    @Override
+    public int compareTo(Money other) {
+        return Long.compare(minor, other.minor);
+    }
+
+    @Override
+    public String toString() {
+        return toBigDecimal().toPlainString();
+    }
+}
@@ -0,0 +1,51 @@
+package com.gnemirko.bank_rest.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+/**
+ * Строка журнала переводов (таблица {@code transactions}).
+ * <p>
+ * Журнал append-only: строки только добавляются, ссылки на карты хранятся как id,
+ * чтобы запись не требовала загрузки {@link Card}. Идентификаторы выдаются пулом
+ * из последовательности {@code transactions_seq} (шаг 50), поэтому пачка переводов
+ * не ходит в БД за каждым id.
+ * <p>
+ * Асинхронный перевод создаёт строку в статусе PENDING; она один раз переходит
+ * в COMPLETED или FAILED (с причиной в {@code failure_reason}).
+ */
+@Entity
+@Getter @Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Table(name = "transactions")
+public class Transaction {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "transactions_seq")
+    @SequenceGenerator(name = "transactions_seq", sequenceName = "transactions_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "from_card_id", nullable = false, updatable = false)
+    private Long fromCardId;
+
+    @Column(name = "to_card_id", nullable = false, updatable = false)
+    private Long toCardId;
+
+    @Column(nullable = false, updatable = false)
+    @Convert(converter = MoneyConverter.class)
+    private Money amount;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private TransactionStatus status;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private Instant createdAt;
+
+    @Column(name = "failure_reason")
+    private String failureReason;
+}
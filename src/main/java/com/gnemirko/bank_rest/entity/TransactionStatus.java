@@ -0,0 +1,7 @@
+package com.gnemirko.bank_rest.entity;
+
+public enum TransactionStatus {
+    PENDING,
+    COMPLETED,
+    FAILED
+}
@@ -0,0 +1,16 @@
+package com.gnemirko.bank_rest.exception;
+
+import lombok.Getter;
+
+import java.time.Duration;
+
+/** Узел перегружен и не принял запрос; клиент может повторить через {@link #getRetryAfter()}. */
+@Getter
+public class ServiceOverloadedException extends RuntimeException {
+    private final Duration retryAfter;
+
+    public ServiceOverloadedException(String message, Duration retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+}
@@ -0,0 +1,88 @@
+package com.gnemirko.bank_rest.repository;
+
+import com.gnemirko.bank_rest.entity.BalanceJournalEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+public interface BalanceJournalRepository extends JpaRepository<BalanceJournalEntry, Long> {
+
+    /**
+     * Снимок плюс ещё не свёрнутые дельты — одним statement-ом, чтобы компактор,
+     * закоммитившийся между двумя чтениями, не дал двойного учёта.
+     * Дельты ищутся по частичному индексу {@code (card_id) where not compacted}.
+     */
+    @Query(value = """
+            select coalesce((select s.balance from card_balance_snapshot s where s.card_id = :cardId), 0)
+                 + coalesce((select sum(j.delta) from card_balance_journal j
+                             where j.card_id = :cardId and j.compacted = false), 0)
+            """, nativeQuery = true)
+    BigDecimal currentBalance(@Param("cardId") Long cardId);
+
+    /**
+     * Сворачивает до {@code batch} самых старых несвёрнутых дельт в снимки.
+     * Незакоммиченные дельты не видны и попадут в следующий проход, поэтому порядок выдачи id
+     * из пула последовательности не важен. SKIP LOCKED позволяет нескольким узлам компактить параллельно.
+     */
+    @Modifying
+    @Query(value = """
+            with folded as (
+                update card_balance_journal j set compacted = true
+                where j.id in (select id from card_balance_journal
+                               where compacted = false
+                               order by id
+                               limit :batch
+                               for update skip locked)
+                returning j.card_id, j.delta
+            )
+            insert into card_balance_snapshot (card_id, balance, taken_at)
+            select card_id, sum(delta), now() from folded group by card_id
+            on conflict (card_id) do update
+                set balance = card_balance_snapshot.balance + excluded.balance,
+                    taken_at = excluded.taken_at
+            """, nativeQuery = true)
+    int compact(@Param("batch") int batch);
+
+    /** Транзакционная advisory-блокировка: компактор берёт её эксклюзивно, перестроение — разделяемо. */
+    @Query(value = "select count(*) from (select pg_advisory_xact_lock(:key)) l", nativeQuery = true)
+    long lockExclusive(@Param("key") long key);
+
+    @Query(value = "select count(*) from (select pg_advisory_xact_lock_shared(:key)) l", nativeQuery = true)
+    long lockShared(@Param("key") long key);
+
+    @Query(value = "select coalesce(min(id), 0), coalesce(max(id), 0) from card", nativeQuery = true)
+    List<Object[]> cardIdRange();
+
+    /** Снимки диапазона карт заново из всех свёрнутых дельт — полное переигрывание журнала. */
+    @Modifying
+    @Query(value = """
+            insert into card_balance_snapshot (card_id, balance, taken_at)
+            select card_id, sum(delta), now() from card_balance_journal
+            where card_id between :lo and :hi and compacted = true
+            group by card_id
+            on conflict (card_id) do update
+                set balance = excluded.balance, taken_at = excluded.taken_at
+            """, nativeQuery = true)
+    int rebuildSnapshots(@Param("lo") long lo, @Param("hi") long hi);
+
+    /**
+     * Карты диапазона, у которых баланс расходится с суммой всего журнала: [card_id, баланс карты, баланс по журналу].
+     * Баланс шардированной карты — сумма под-балансов.
+     */
+    @Query(value = """
+            select c.id,
+                   case when c.balance_shards > 0
+                        then (select coalesce(sum(s.balance), 0) from card_balance_shard s where s.card_id = c.id)
+                        else coalesce(c.balance, 0) end as stored,
+                   coalesce(r.replayed, 0) as replayed
+            from card c
+            left join (select card_id, sum(delta) as replayed from card_balance_journal
+                       where card_id between :lo and :hi group by card_id) r on r.card_id = c.id
+            where c.id between :lo and :hi
+            """, nativeQuery = true)
+    List<Object[]> replay(@Param("lo") long lo, @Param("hi") long hi);
+}
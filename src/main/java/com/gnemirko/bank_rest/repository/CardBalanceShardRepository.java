@@ -0,0 +1,42 @@
+package com.gnemirko.bank_rest.repository;
+
+import com.gnemirko.bank_rest.entity.CardBalanceShard;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+/**
+ * Операции над под-балансами идут bulk/native statement-ами, а не через managed-сущности:
+ * так зачисление — один UPDATE одной строки, и в persistence context не остаётся устаревших копий шардов.
+ * Суммы ходят в копейках ({@code long}): в NUMERIC и обратно их переводит БД, без BigDecimal на пути перевода.
+ */
+public interface CardBalanceShardRepository extends JpaRepository<CardBalanceShard, CardBalanceShard.Key> {
+
+    @Modifying
+    @Query(value = "update card_balance_shard set balance = balance + :amountMinor * 0.01 where card_id = :cardId and shard_no = :shardNo",
+            nativeQuery = true)
+    int credit(@Param("cardId") Long cardId, @Param("shardNo") int shardNo, @Param("amountMinor") long amountMinor);
+
+    @Modifying
+    @Query(value = "update card_balance_shard set balance = balance - :amountMinor * 0.01 where card_id = :cardId and shard_no = :shardNo",
+            nativeQuery = true)
+    int debit(@Param("cardId") Long cardId, @Param("shardNo") int shardNo, @Param("amountMinor") long amountMinor);
+
+    /** Блокирует все шарды карты в порядке shard_no; возвращает пары [shard_no, баланс в копейках]. */
+    @Query(value = "select shard_no, cast(balance * 100 as bigint) from card_balance_shard where card_id = :cardId order by shard_no for update",
+            nativeQuery = true)
+    List<Object[]> lockAll(@Param("cardId") Long cardId);
+
+    /** Блокирует один шард карты; пусто — шарда нет. */
+    @Query(value = "select shard_no from card_balance_shard where card_id = :cardId and shard_no = :shardNo for update",
+            nativeQuery = true)
+    List<Integer> lockOne(@Param("cardId") Long cardId, @Param("shardNo") int shardNo);
+
+    @Modifying
+    @Query(value = "update card_balance_shard set balance = case when shard_no = 0 then :balanceMinor * 0.01 else 0 end where card_id = :cardId",
+            nativeQuery = true)
+    int reset(@Param("cardId") Long cardId, @Param("balanceMinor") long balanceMinor);
+}
@@ -0,0 +1,38 @@
+package com.gnemirko.bank_rest.repository;
+
+import com.gnemirko.bank_rest.dto.CardRow;
+import com.gnemirko.bank_rest.entity.Card;
+import com.gnemirko.bank_rest.entity.CardStatus;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Списки карт проекцией {@link CardRow}: один SELECT с join владельца, без загрузки сущностей.
+ * Срез без {@code count(*)} и оценка числа строк планировщиком.
+ */
+public interface CardListingRepository {
+
+    /** Страница с общим количеством: SELECT строк и count по тем же фильтрам. */
+    Page<CardRow> findRowPage(Specification<Card> spec, Pageable pageable);
+
+    /** Читает {@code size + 1} строк: лишняя строка только говорит, что есть следующая страница. */
+    Slice<CardRow> findRowSlice(Specification<Card> spec, Pageable pageable);
+
+    /** Первые {@code limit} строк в порядке {@code sort} (keyset-страница). */
+    List<CardRow> findRows(Specification<Card> spec, Sort sort, int limit);
+
+    /**
+     * Все строки по фильтрам курсором на стороне сервера: {@code fetchSize} строк за раз, read-only.
+     * Строки — не сущности, persistence context не растёт. Вызывать внутри транзакции и закрывать поток.
+     */
+    Stream<CardRow> streamRows(Specification<Card> spec, Sort sort, int fetchSize);
+
+    /** Оценка числа карт пользователя по статистике планировщика ({@code EXPLAIN}), без чтения строк. */
+    long estimateOwnedCount(Long ownerId, CardStatus status, String last4);
+}
@@ -0,0 +1,152 @@
+package com.gnemirko.bank_rest.repository;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gnemirko.bank_rest.dto.CardRow;
+import com.gnemirko.bank_rest.entity.Card;
+import com.gnemirko.bank_rest.entity.CardStatus;
+import com.gnemirko.bank_rest.entity.User;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+class CardListingRepositoryImpl implements CardListingRepository {
+
+    @PersistenceContext
+    private EntityManager em;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+
+    CardListingRepositoryImpl(JdbcTemplate jdbcTemplate, ObjectMapper objectMapper) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public Page<CardRow> findRowPage(Specification<Card> spec, Pageable pageable) {
+        TypedQuery<CardRow> query = rowsQuery(spec, pageable.getSort());
+        if (pageable.isUnpaged()) {
+            return new PageImpl<>(query.getResultList());
+        }
+        List<CardRow> rows = query
+                .setFirstResult(Math.toIntExact(pageable.getOffset()))
+                .setMaxResults(pageable.getPageSize())
+                .getResultList();
+        // на неполной странице итог известен — count не нужен
+        return PageableExecutionUtils.getPage(rows, pageable, () -> count(spec));
+    }
+
+    @Override
+    public Slice<CardRow> findRowSlice(Specification<Card> spec, Pageable pageable) {
+        TypedQuery<CardRow> query = rowsQuery(spec, pageable.getSort());
+        if (pageable.isUnpaged()) {
+            return new SliceImpl<>(query.getResultList(), pageable, false);
+        }
+        int size = pageable.getPageSize();
+        List<CardRow> rows = query
+                .setFirstResult(Math.toIntExact(pageable.getOffset()))
+                .setMaxResults(size + 1)
+                .getResultList();
+        boolean hasNext = rows.size() > size;
+        return new SliceImpl<>(hasNext ? rows.subList(0, size) : rows, pageable, hasNext);
+    }
+
+    @Override
+    public List<CardRow> findRows(Specification<Card> spec, Sort sort, int limit) {
+        return rowsQuery(spec, sort).setMaxResults(limit).getResultList();
+    }
+
+    @Override
+    public Stream<CardRow> streamRows(Specification<Card> spec, Sort sort, int fetchSize) {
+        return rowsQuery(spec, sort)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .getResultStream();
+    }
+
+    /**
+     * Баланс шардированной карты — сумма шардов (формула {@code shardedBalance}); за CASE коррелированный
+     * подзапрос выполняется только для таких карт.
+     */
+    private TypedQuery<CardRow> rowsQuery(Specification<Card> spec, Sort sort) {
+        CriteriaBuilder cb = em.getCriteriaBuilder();
+        CriteriaQuery<CardRow> query = cb.createQuery(CardRow.class);
+        Root<Card> root = query.from(Card.class);
+        Join<Card, User> owner = root.join("owner", JoinType.LEFT);
+        Expression<BigDecimal> shardedBalance = cb.<BigDecimal>selectCase()
+                .when(cb.gt(root.<Integer>get("balanceShards"), 0), root.<BigDecimal>get("shardedBalance"))
+                .otherwise(cb.nullLiteral(BigDecimal.class));
+        query.select(cb.construct(CardRow.class,
+                root.get("id"),
+                root.get("number"),
+                root.get("expiryDate"),
+                root.get("status"),
+                root.get("balance"),
+                shardedBalance,
+                owner.get("id"),
+                owner.get("role"),
+                owner.get("name"),
+                owner.get("enabled")));
+        Predicate where = spec.toPredicate(root, query, cb);
+        if (where != null) query.where(where);
+        query.orderBy(QueryUtils.toOrders(sort, root, cb));
+        return em.createQuery(query);
+    }
+
+    private long count(Specification<Card> spec) {
+        CriteriaBuilder cb = em.getCriteriaBuilder();
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        Root<Card> root = query.from(Card.class);
+        Predicate where = spec.toPredicate(root, query, cb);
+        if (where != null) query.where(where);
+        query.select(cb.count(root));
+        return em.createQuery(query).getSingleResult();
+    }
+
+    @Override
+    public long estimateOwnedCount(Long ownerId, CardStatus status, String last4) {
+        StringBuilder sql = new StringBuilder("explain (format json) select 1 from card c where c.user_id = ?");
+        List<Object> args = new ArrayList<>(List.of(ownerId));
+        if (status != null) {
+            sql.append(" and c.status = ?");
+            args.add(status.name());
+        }
+        if (last4 != null && last4.length() == 4) {
+            sql.append(" and c.last4 = ?");
+            args.add(last4);
+        } else if (last4 != null && !last4.isBlank()) {
+            sql.append(" and c.number like ?");
+            args.add("%" + last4);
+        }
+        String plan = jdbcTemplate.queryForObject(sql.toString(), String.class, args.toArray());
+        try {
+            return objectMapper.readTree(plan).path(0).path("Plan").path("Plan Rows").asLong();
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Unexpected EXPLAIN output", e);
+        }
+    }
+}
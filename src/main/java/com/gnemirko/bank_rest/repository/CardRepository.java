@@ -6,14 +6,97 @@ import jakarta.persistence.QueryHint;
 import org.springframework.data.jpa.repository.*;
 import org.springframework.data.repository.query.Param;
 
+import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
-public interface CardRepository extends JpaRepository<Card, Long>, JpaSpecificationExecutor<Card> {
+public interface CardRepository extends JpaRepository<Card, Long>, JpaSpecificationExecutor<Card>, CardListingRepository {
     @Lock(LockModeType.PESSIMISTIC_WRITE)
     @Query("select c from Card c where c.id = :id")
     @QueryHints({
             @QueryHint(name = "jakarta.persistence.lock.timeout", value = "5000")
     })
     Optional<Card> findByIdForUpdate(@Param("id") Long id);
-}
\ No newline at end of file
+
+    /** FOR SHARE: для шардированной карты строку карты достаточно защитить от смены статуса, баланс меняется в шардах. */
+    @Lock(LockModeType.PESSIMISTIC_READ)
+    @Query("select c from Card c where c.id = :id")
+    @QueryHints({
+            @QueryHint(name = "jakarta.persistence.lock.timeout", value = "5000")
+    })
+    Optional<Card> findByIdForShare(@Param("id") Long id);
+
+    @Query("select c.id from Card c where c.balanceShards > 0")
+    List<Long> findShardedIds();
+
+    /** Блокирует все карты одним запросом; ORDER BY id даёт тот же порядок захвата, что и у одиночного перевода. */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select c from Card c where c.id in :ids order by c.id")
+    @QueryHints({
+            @QueryHint(name = "jakarta.persistence.lock.timeout", value = "5000")
+    })
+    List<Card> findAllByIdForUpdate(@Param("ids") Collection<Long> ids);
+
+    @Query("select c.owner.id from Card c where c.id = :id")
+    Optional<Long> findOwnerIdById(@Param("id") Long id);
+
+    /**
+     * Списание одним statement-ом: все проверки перевода в WHERE.
+     * 0 обновлённых строк — карта не найдена, чужая, не активна, просрочена или средств недостаточно.
+     * Срок сравнивается с первым днём текущего месяца: карта действует до конца месяца expiry.
+     * Сумма передаётся в копейках ({@link com.gnemirko.bank_rest.entity.Money#minor()}), в NUMERIC её
+     * переводит сама БД ({@code bigint * 0.01} точен) — на пути перевода BigDecimal не создаётся.
+     */
+    @Modifying
+    @Query(value = """
+            update card set balance = balance - :amountMinor * 0.01, version = version + 1
+            where id = :id
+              and user_id = :ownerId
+              and balance >= :amountMinor * 0.01
+              and status = 'ACTIVE'
+              and expiry_date >= cast(date_trunc('month', current_date) as date)
+              and balance_shards = 0
+            """, nativeQuery = true)
+    int debitIfAllowed(@Param("id") Long id, @Param("ownerId") Long ownerId, @Param("amountMinor") long amountMinor);
+
+    /** Зачисление одним statement-ом; те же проверки, что и у списания, кроме баланса. */
+    @Modifying
+    @Query(value = """
+            update card set balance = balance + :amountMinor * 0.01, version = version + 1
+            where id = :id
+              and user_id = :ownerId
+              and status = 'ACTIVE'
+              and expiry_date >= cast(date_trunc('month', current_date) as date)
+              and balance_shards = 0
+            """, nativeQuery = true)
+    int creditIfAllowed(@Param("id") Long id, @Param("ownerId") Long ownerId, @Param("amountMinor") long amountMinor);
+
+    /**
+     * Отпечаток карты для ETag: версия, статус, баланс (у шардированной — сумма шардов, которую
+     * зачисления меняют без версии карты) и поля владельца из ответа. Одна строка по PK, md5 считает БД.
+     * Пусто, если карты нет или она чужая.
+     */
+    @Query(value = """
+            select md5(concat_ws(':', u.role, u.enabled, u.name, c.id, c.version, c.status,
+                   case when c.balance_shards > 0
+                        then (select sum(s.balance) from card_balance_shard s where s.card_id = c.id)
+                        else c.balance end))
+            from card c join users u on u.id = c.user_id
+            where c.id = :id and c.user_id = :ownerId
+            """, nativeQuery = true)
+    Optional<String> ownedCardTag(@Param("ownerId") Long ownerId, @Param("id") Long id);
+
+    /** То же по всем картам владельца (по индексу {@code (user_id, id)}); меняется при любом изменении любой из них. */
+    @Query(value = """
+            select md5(concat_ws(':', u.role, u.enabled, u.name,
+                   string_agg(concat_ws(':', c.id, c.version, c.status,
+                              case when c.balance_shards > 0
+                                   then (select sum(s.balance) from card_balance_shard s where s.card_id = c.id)
+                                   else c.balance end), ',' order by c.id)))
+            from users u left join card c on c.user_id = u.id
+            where u.id = :ownerId
+            group by u.id, u.role, u.enabled, u.name
+            """, nativeQuery = true)
+    Optional<String> ownedCardsTag(@Param("ownerId") Long ownerId);
+}
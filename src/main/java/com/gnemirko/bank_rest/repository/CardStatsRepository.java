@@ -0,0 +1,51 @@
+package com.gnemirko.bank_rest.repository;
+
+import com.gnemirko.bank_rest.entity.CardStatsSlot;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Счётчики меняются только приращениями (upsert {@code +delta}), без чтения: приращения коммутируют,
+ * поэтому параллельные изменения и поправки сверки не затирают друг друга.
+ */
+public interface CardStatsRepository extends JpaRepository<CardStatsSlot, CardStatsSlot.Key> {
+
+    @Modifying
+    @Query(value = """
+            insert into card_stats (status, slot, card_count, total_balance)
+            values (:status, :slot, :cards, :balance)
+            on conflict (status, slot) do update
+                set card_count = card_stats.card_count + excluded.card_count,
+                    total_balance = card_stats.total_balance + excluded.total_balance
+            """, nativeQuery = true)
+    int add(@Param("status") String status, @Param("slot") int slot,
+            @Param("cards") long cards, @Param("balance") BigDecimal balance);
+
+    /** [status, число карт, сумма балансов] по счётчикам. */
+    @Query(value = """
+            select status, sum(card_count), sum(total_balance) from card_stats
+            group by status
+            """, nativeQuery = true)
+    List<Object[]> totals();
+
+    /** [status, число карт, сумма балансов] полным агрегатом по {@code card}; баланс шардированной карты — сумма шардов. */
+    @Query(value = """
+            select c.status, count(*),
+                   coalesce(sum(case when c.balance_shards > 0
+                                     then (select coalesce(sum(s.balance), 0) from card_balance_shard s where s.card_id = c.id)
+                                     else coalesce(c.balance, 0) end), 0)
+            from card c
+            where c.status is not null
+            group by c.status
+            """, nativeQuery = true)
+    List<Object[]> aggregate();
+
+    /** Сверку в кластере выполняет один узел; остальные пропускают запуск. */
+    @Query(value = "select pg_try_advisory_xact_lock(:key)", nativeQuery = true)
+    boolean tryLock(@Param("key") long key);
+}
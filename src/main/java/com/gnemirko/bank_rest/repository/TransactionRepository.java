@@ -0,0 +1,33 @@
+package com.gnemirko.bank_rest.repository;
+
+import com.gnemirko.bank_rest.entity.Transaction;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+public interface TransactionRepository extends JpaRepository<Transaction, Long> {
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select t from Transaction t where t.id = :id")
+    Optional<Transaction> findByIdForUpdate(@Param("id") Long id);
+
+    /** Переводы, застрявшие в PENDING (узел упал до проведения); индекс (status, created_at). */
+    @Query("select t from Transaction t where t.status = com.gnemirko.bank_rest.entity.TransactionStatus.PENDING and t.createdAt < :before order by t.createdAt, t.id")
+    List<Transaction> findPendingBefore(@Param("before") Instant before, Pageable page);
+
+    @Modifying
+    @Query("""
+            update Transaction t
+               set t.status = com.gnemirko.bank_rest.entity.TransactionStatus.FAILED, t.failureReason = :reason
+             where t.id = :id and t.status = com.gnemirko.bank_rest.entity.TransactionStatus.PENDING
+            """)
+    int markFailed(@Param("id") Long id, @Param("reason") String reason);
+}
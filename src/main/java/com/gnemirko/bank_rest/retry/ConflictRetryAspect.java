@@ -0,0 +1,83 @@
+package com.gnemirko.bank_rest.retry;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.OptimisticLockException;
+import lombok.extern.slf4j.Slf4j;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Повтор методов с {@link RetryOnConflict} при конфликте версий.
+ * <p>
+ * Аспект стоит снаружи {@code @Transactional} (order на единицу выше), поэтому каждая попытка
+ * идёт в новой транзакции. Пауза между попытками — экспоненциальная с полным джиттером:
+ * {@code random(0, min(maxBackoff, initialBackoff * 2^attempt))}, число попыток ограничено
+ * {@code app.transfer.optimistic.max-attempts}.
+ * <p>
+ * Метрики: {@code bank.conflict.attempts} (все попытки), {@code bank.conflict.conflicts}
+ * (попытки, завершившиеся конфликтом), {@code bank.conflict.exhausted} (исчерпан бюджет).
+ * Доля конфликтов = conflicts / attempts.
+ */
+@Slf4j
+@Aspect
+@Component
+@Order(Ordered.LOWEST_PRECEDENCE - 1)
+public class ConflictRetryAspect {
+
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.transfer.optimistic.max-attempts:5}")
+    private int maxAttempts = 5;
+
+    @Value("${app.transfer.optimistic.initial-backoff-ms:5}")
+    private long initialBackoffMs = 5;
+
+    @Value("${app.transfer.optimistic.max-backoff-ms:200}")
+    private long maxBackoffMs = 200;
+
+    public ConflictRetryAspect(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Around("@annotation(com.gnemirko.bank_rest.retry.RetryOnConflict)")
+    public Object retry(ProceedingJoinPoint pjp) throws Throwable {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return pjp.proceed();
+        }
+
+        String method = pjp.getSignature().toShortString();
+        Counter attempts  = meterRegistry.counter("bank.conflict.attempts", "method", method);
+        Counter conflicts = meterRegistry.counter("bank.conflict.conflicts", "method", method);
+
+        for (int attempt = 1; ; attempt++) {
+            attempts.increment();
+            try {
+                return pjp.proceed();
+            } catch (OptimisticLockingFailureException | OptimisticLockException ex) {
+                conflicts.increment();
+                if (attempt >= maxAttempts) {
+                    meterRegistry.counter("bank.conflict.exhausted", "method", method).increment();
+                    log.warn("{}: retry budget exhausted after {} attempts", method, attempt);
+                    throw ex;
+                }
+                backoff(attempt);
+            }
+        }
+    }
+
+    private void backoff(int attempt) throws InterruptedException {
+        long ceiling = Math.min(maxBackoffMs, initialBackoffMs << Math.min(attempt, 20));
+        long sleepMs = ThreadLocalRandom.current().nextLong(ceiling + 1);
+        if (sleepMs > 0) Thread.sleep(sleepMs);
+    }
+}
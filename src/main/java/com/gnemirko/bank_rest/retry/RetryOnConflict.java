@@ -0,0 +1,14 @@
+package com.gnemirko.bank_rest.retry;
+
+import java.lang.annotation.*;
+
+/**
+ * Повторять вызов при конфликте оптимистической блокировки ({@code @Version}).
+ * Повтор выполняется только на внешней границе транзакции: если метод вызван внутри
+ * уже открытой транзакции, конфликт пробрасывается наружу как есть.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface RetryOnConflict {
+}
@@ -0,0 +1,20 @@
+package com.gnemirko.bank_rest.security;
+
+import lombok.Getter;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+
+import java.util.Collection;
+
+/** Пользователь Spring Security с id из {@code users}: id попадает в токен как claim {@code uid}. */
+@Getter
+public class AppUserDetails extends User {
+
+    private final Long id;
+
+    public AppUserDetails(Long id, String username, String password, boolean enabled,
+                          Collection<? extends GrantedAuthority> authorities) {
+        super(username, password, enabled, true, true, true, authorities);
+        this.id = id;
+    }
+}
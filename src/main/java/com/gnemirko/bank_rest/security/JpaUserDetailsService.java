@@ -5,13 +5,17 @@ import com.gnemirko.bank_rest.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
 
 @Service
 @RequiredArgsConstructor
-public class JpaUserDetailsService implements UserDetailsService {
+public class JpaUserDetailsService implements UserDetailsService, UserDetailsPasswordService {
 
     private final UserRepository userRepository;
 
@@ -20,11 +24,25 @@ public class JpaUserDetailsService implements UserDetailsService {
         User user = userRepository.findByName(username)
                 .orElseThrow(() -> new UsernameNotFoundException("User not found with email: " + username));
 
-        return org.springframework.security.core.userdetails.User.builder()
-                .username(user.getName())
-                .password(user.getPasswordHash())
-                .authorities(new SimpleGrantedAuthority(user.getRole().name()))
-                .disabled(!user.isEnabled())
-                .build();
+        return toDetails(user);
+    }
+
+    /** Пересчёт хэша при логине, когда стоимость BCrypt в настройках изменилась. */
+    @Transactional
+    @Override
+    public UserDetails updatePassword(UserDetails details, String newPasswordHash) {
+        User user = userRepository.findByName(details.getUsername())
+                .orElseThrow(() -> new UsernameNotFoundException("User not found with email: " + details.getUsername()));
+        user.setPasswordHash(newPasswordHash);
+        return toDetails(user);
+    }
+
+    private static UserDetails toDetails(User user) {
+        return new AppUserDetails(
+                user.getId(),
+                user.getName(),
+                user.getPasswordHash(),
+                user.isEnabled(),
+                List.of(new SimpleGrantedAuthority(user.getRole().name())));
     }
 }
\ No newline at end of file
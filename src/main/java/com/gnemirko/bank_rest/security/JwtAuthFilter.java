@@ -1,27 +1,55 @@
 package com.gnemirko.bank_rest.security;
 
+import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.JwtException;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
-import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.lang.NonNull;
-import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.*;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
 
+/**
+ * Аутентификация запроса по Bearer-токену. В результате всегда {@link JwtAuthenticationToken}
+ * с проверенными claims — из него {@link Auth#currentUserId()} берёт {@code uid}.
+ * <p>
+ * {@code security.jwt.stateless=true} (по умолчанию): роли берутся из claim {@code roles}, БД не читается;
+ * отозванные токены отсекает {@link TokenDenylist}. {@code false}: роли и признак блокировки — из
+ * {@code users} через {@link PrincipalCache}, смена роли действует без перевыпуска токена.
+ */
 @Component
-@RequiredArgsConstructor
 public class JwtAuthFilter extends OncePerRequestFilter {
 
     private final JwtService jwtService;
-    private final UserDetailsService userDetailsService; // наш JpaUserDetailsService
+    private final PrincipalCache principals; // JpaUserDetailsService за кэшем
+    private final TokenDenylist denylist;
+    private final boolean stateless;
+
+    public JwtAuthFilter(
+            JwtService jwtService,
+            PrincipalCache principals,
+            TokenDenylist denylist,
+            @Value("${security.jwt.stateless:true}") boolean stateless
+    ) {
+        this.jwtService = jwtService;
+        this.principals = principals;
+        this.denylist = denylist;
+        this.stateless = stateless;
+    }
 
     @Override
     protected void doFilterInternal(
@@ -32,27 +60,59 @@ public class JwtAuthFilter extends OncePerRequestFilter {
 
         String header = request.getHeader("Authorization");
 
-        if (header != null && header.startsWith("Bearer ")) {
+        if (header != null && header.startsWith("Bearer ")
+                && SecurityContextHolder.getContext().getAuthentication() == null) {
             String token = header.substring(7);
 
             try {
-                String username = jwtService.extractUsername(token);
-
-                if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-                    UserDetails user = userDetailsService.loadUserByUsername(username);
+                Claims claims = jwtService.verify(token);
+                Collection<? extends GrantedAuthority> authorities = authorities(claims);
 
-                    var auth = new UsernamePasswordAuthenticationToken(
-                            user,
-                            null,
-                            user.getAuthorities()
-                    );
+                if (claims.getSubject() != null && authorities != null) {
+                    var auth = new JwtAuthenticationToken(toJwt(token, claims), authorities, claims.getSubject());
                     auth.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
                     SecurityContextHolder.getContext().setAuthentication(auth);
                 }
-            } catch (JwtException ex) {
+            } catch (JwtException | UsernameNotFoundException ex) {
+                // невалидный токен или удалённый пользователь — запрос идёт дальше неаутентифицированным
             }
         }
 
         filterChain.doFilter(request, response);
     }
-}
\ No newline at end of file
+
+    /** null — токен не принимается (отозван, без uid, пользователь заблокирован). */
+    private Collection<? extends GrantedAuthority> authorities(Claims claims) {
+        if (stateless) {
+            if (claims.get(JwtService.UID_CLAIM) == null || denylist.isRevoked(claims)) {
+                return null;
+            }
+            String roles = claims.get(JwtService.ROLES_CLAIM, String.class);
+            if (roles == null || roles.isBlank()) return List.of();
+            return Arrays.stream(roles.split(","))
+                    .map(String::trim)
+                    .filter(role -> !role.isEmpty())
+                    .map(SimpleGrantedAuthority::new)
+                    .toList();
+        }
+        UserDetails user = principals.load(claims.getSubject());
+        if (!user.isEnabled() || !user.isAccountNonLocked()) {
+            return null;
+        }
+        return user.getAuthorities();
+    }
+
+    private static Jwt toJwt(String token, Claims claims) {
+        Jwt.Builder jwt = Jwt.withTokenValue(token)
+                .header("alg", "HS256")
+                .subject(claims.getSubject());
+        if (claims.getId() != null) jwt.jti(claims.getId());
+        if (claims.getIssuedAt() != null) jwt.issuedAt(claims.getIssuedAt().toInstant());
+        if (claims.getExpiration() != null) jwt.expiresAt(claims.getExpiration().toInstant());
+        Object uid = claims.get(JwtService.UID_CLAIM);
+        if (uid != null) jwt.claim(JwtService.UID_CLAIM, uid);
+        Object roles = claims.get(JwtService.ROLES_CLAIM);
+        if (roles != null) jwt.claim(JwtService.ROLES_CLAIM, roles);
+        return jwt.build();
+    }
+}
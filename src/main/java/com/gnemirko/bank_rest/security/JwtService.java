@@ -1,8 +1,10 @@
 package com.gnemirko.bank_rest.security;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
-import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -10,47 +12,129 @@ import org.springframework.stereotype.Component;
 
 import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.Instant;
 import java.util.Date;
+import java.util.HexFormat;
+import java.util.UUID;
 import java.util.stream.Collectors;
 
+/**
+ * Выпуск и проверка токенов. Ключ и парсер создаются один раз ({@link JwtParser} потокобезопасен).
+ * <p>
+ * Клиент ходит с одним токеном весь его срок, поэтому проверенные claims кэшируются по SHA-256 токена
+ * ({@code security.jwt.verified-cache.max-size}, 0 — без кэша). Запись живёт до {@code exp} токена,
+ * попадание после {@code exp} всё равно отдаётся на полную проверку. Отзыв по {@code jti} кэш не обходит —
+ * {@link TokenDenylist} проверяется фильтром на каждый запрос.
+ */
 @Component
-@RequiredArgsConstructor
 public class JwtService {
 
-    @Value("${security.jwt.secret}")
-    private String secret;
+    public static final String UID_CLAIM = "uid";
+    public static final String ROLES_CLAIM = "roles";
 
-    @Value("${security.jwt.expiration:3600}") // секунды
-    private long expirationSec;
+    private final TokenDenylist denylist;
+    private final Key key;
+    private final JwtParser parser;
+    private final long expirationSec;
+    private final Cache<String, Claims> verified; // null — кэш выключен
 
-    private Key key() {
+    public JwtService(
+            TokenDenylist denylist,
+            @Value("${security.jwt.secret}") String secret,
+            @Value("${security.jwt.expiration:3600}") long expirationSec, // секунды
+            @Value("${security.jwt.verified-cache.max-size:10000}") long verifiedCacheSize
+    ) {
+        this.denylist = denylist;
         // Строка секрета должна быть длиной 32+ байта для HS256
-        return Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+        this.key = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+        this.parser = Jwts.parserBuilder().setSigningKey(key).build();
+        this.expirationSec = expirationSec;
+        this.verified = verifiedCacheSize > 0
+                ? Caffeine.newBuilder().maximumSize(verifiedCacheSize).expireAfter(new UntilTokenExpiry()).build()
+                : null;
     }
 
+    /** Токен несёт всё для stateless-авторизации: {@code uid}, {@code roles} и {@code jti} для отзыва. */
     public String generateToken(UserDetails user) {
         Instant now = Instant.now();
 
         String roles = user.getAuthorities().stream()
                 .map(GrantedAuthority::getAuthority)   // e.g. ROLE_ADMIN, ROLE_USER
                 .collect(Collectors.joining(","));
+        Long uid = user instanceof AppUserDetails app ? app.getId() : null;
+        Instant issuedAt = denylist.issuedAt(uid, now);
+        String jti = UUID.randomUUID().toString();
 
-        return Jwts.builder()
+        JwtBuilder builder = Jwts.builder()
                 .setSubject(user.getUsername())
-                .claim("roles", roles)
-                .setIssuedAt(Date.from(now))
-                .setExpiration(Date.from(now.plusSeconds(expirationSec)))
-                .signWith(key(), SignatureAlgorithm.HS256)
-                .compact();
+                .setId(jti)
+                .claim(ROLES_CLAIM, roles)
+                .setIssuedAt(Date.from(issuedAt))
+                .setExpiration(Date.from(issuedAt.plusSeconds(expirationSec)))
+                .signWith(key, SignatureAlgorithm.HS256);
+        if (uid != null) {
+            builder.claim(UID_CLAIM, uid);
+        }
+        return builder.compact();
+    }
+
+    /**
+     * Проверяет подпись и срок; бросает {@link JwtException}, если токен невалиден.
+     * Возвращённые claims могут быть общими для нескольких запросов — только для чтения.
+     */
+    public Claims verify(String token) throws JwtException {
+        if (verified == null) {
+            return parser.parseClaimsJws(token).getBody();
+        }
+        String digest = digest(token);
+        Claims claims = verified.getIfPresent(digest);
+        if (claims != null && !expired(claims)) {
+            return claims;
+        }
+        claims = parser.parseClaimsJws(token).getBody();
+        verified.put(digest, claims);
+        return claims;
     }
 
     public String extractUsername(String token) throws JwtException {
-        return Jwts.parserBuilder()
-                .setSigningKey(key())
-                .build()
-                .parseClaimsJws(token)
-                .getBody()
-                .getSubject();
+        return verify(token).getSubject();
+    }
+
+    private static boolean expired(Claims claims) {
+        Date exp = claims.getExpiration();
+        return exp != null && exp.getTime() <= System.currentTimeMillis();
+    }
+
+    private static String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+            return HexFormat.of().formatHex(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /** Запись о проверенном токене живёт до его {@code exp}; токен без срока — не дольше обычного срока токена. */
+    private final class UntilTokenExpiry implements Expiry<String, Claims> {
+        @Override
+        public long expireAfterCreate(String digest, Claims claims, long currentTime) {
+            Date exp = claims.getExpiration();
+            if (exp == null) {
+                return expirationSec * 1_000_000_000L;
+            }
+            return Math.max(0, exp.getTime() - System.currentTimeMillis()) * 1_000_000L;
+        }
+
+        @Override
+        public long expireAfterUpdate(String digest, Claims claims, long currentTime, long currentDuration) {
+            return expireAfterCreate(digest, claims, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String digest, Claims claims, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,65 @@
+package com.gnemirko.bank_rest.security;
+
+import com.gnemirko.bank_rest.exception.ServiceOverloadedException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.*;
+import java.util.function.Supplier;
+
+/**
+ * Отдельный пул для проверки паролей: BCrypt — чистый CPU, и волна логинов (после деплоя, при массовом
+ * истечении токенов) не должна занимать потоки Tomcat, на которых идут переводы.
+ * <p>
+ * Потоков — по числу ядер ({@code app.security.login.threads}, 0 — автоматически), очередь ограничена
+ * ({@code queue-capacity}). Сверх неё логин сразу отклоняется {@link ServiceOverloadedException} — 503 с
+ * {@code Retry-After}: перегружен узел, а не конкретный клиент. Метрики: {@code executor.*} с тегом
+ * {@code name=auth.login} и счётчик {@code auth.login.rejected}.
+ */
+@Component
+public class LoginExecutor {
+
+    private final ThreadPoolExecutor pool;
+    private final Duration retryAfter;
+    private final Counter rejected;
+
+    public LoginExecutor(
+            MeterRegistry meterRegistry,
+            @Value("${app.security.login.threads:0}") int threads,
+            @Value("${app.security.login.queue-capacity:100}") int queueCapacity,
+            @Value("${app.security.login.retry-after:1s}") Duration retryAfter
+    ) {
+        int size = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        this.pool = new ThreadPoolExecutor(size, size, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                Thread.ofPlatform().name("login-", 0).factory(),
+                new ThreadPoolExecutor.AbortPolicy());
+        this.retryAfter = retryAfter;
+        this.rejected = Counter.builder("auth.login.rejected")
+                .description("Логины, отклонённые из-за заполненной очереди")
+                .register(meterRegistry);
+        new ExecutorServiceMetrics(pool, "auth.login", Tags.empty()).bindTo(meterRegistry);
+    }
+
+    /** Ставит проверку в очередь; бросает {@link ServiceOverloadedException}, если очередь заполнена. */
+    public <T> CompletableFuture<T> submit(Supplier<T> login) {
+        try {
+            return CompletableFuture.supplyAsync(login, pool);
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw new ServiceOverloadedException("Too many concurrent logins, retry later", retryAfter);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() throws InterruptedException {
+        pool.shutdown();
+        pool.awaitTermination(10, TimeUnit.SECONDS);
+    }
+}
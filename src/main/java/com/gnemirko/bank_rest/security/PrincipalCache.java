@@ -0,0 +1,75 @@
+package com.gnemirko.bank_rest.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+
+/**
+ * Принципалы для {@link JwtAuthFilter}: запрос с токеном не читает {@code users}, пока запись в кэше жива.
+ * TTL ({@code app.security.principal-cache.ttl}) — верхняя граница, за которую смена роли или
+ * блокировка пользователя доходит до уже выданных токенов; изменения через сервис сбрасывают запись сразу
+ * и ещё раз после коммита.
+ * <p>
+ * Загрузка, идущая во время коммита, не оставит старое значение: Caffeine ждёт её окончания
+ * перед инвалидацией ключа. Хэш пароля в кэше не хранится — логин проверяет пароль по БД.
+ * Метрики: {@code cache.*} с тегом {@code cache=auth.principals} и таймер {@code auth.principal.load}.
+ */
+@Component
+public class PrincipalCache {
+
+    private final UserDetailsService userDetailsService;
+    private final Cache<String, UserDetails> principals;
+    private final Timer loads;
+
+    public PrincipalCache(
+            UserDetailsService userDetailsService,
+            MeterRegistry meterRegistry,
+            @Value("${app.security.principal-cache.ttl:30s}") Duration ttl,
+            @Value("${app.security.principal-cache.max-size:10000}") long maxSize
+    ) {
+        this.userDetailsService = userDetailsService;
+        this.principals = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        this.loads = Timer.builder("auth.principal.load")
+                .description("Загрузка пользователя из БД для аутентификации запроса")
+                .register(meterRegistry);
+        CaffeineCacheMetrics.monitor(meterRegistry, principals, "auth.principals");
+    }
+
+    /** Бросает {@link org.springframework.security.core.userdetails.UsernameNotFoundException}; отсутствие не кэшируется. */
+    public UserDetails load(String username) {
+        return principals.get(username, this::loadFromDb);
+    }
+
+    private UserDetails loadFromDb(String username) {
+        UserDetails user = loads.record(() -> userDetailsService.loadUserByUsername(username));
+        return User.withUserDetails(user).password("").build();
+    }
+
+    /** Роль или доступ пользователя изменились. Внутри транзакции сброс повторяется после её завершения. */
+    public void evict(String username) {
+        principals.invalidate(username);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    principals.invalidate(username);
+                }
+            });
+        }
+    }
+}
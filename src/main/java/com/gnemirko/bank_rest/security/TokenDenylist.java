@@ -0,0 +1,68 @@
+package com.gnemirko.bank_rest.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.jsonwebtoken.Claims;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Date;
+
+/**
+ * Отзыв токенов для stateless-аутентификации. Обе структуры ограничены только сроком токена, а не
+ * размером: вытеснение записи вернуло бы отозванный токен в строй. После срока токен и так
+ * не пройдёт проверку подписи/срока, поэтому записи старше него не нужны.
+ * <p>
+ * Отдельный токен отзывается по {@code jti}. Все токены пользователя (смена роли, блокировка) —
+ * границей «отозваны выданные до»: токен с {@code iat} раньше неё не принимается. Это одна запись
+ * на изменённого пользователя, а не список его jti. Граница хранится в памяти узла: токены,
+ * выданные или отозванные на другом узле, доживают до своего {@code exp}.
+ */
+@Component
+public class TokenDenylist {
+
+    private final Cache<String, Boolean> revoked;
+    private final Cache<Long, Instant> revokedBefore;
+
+    public TokenDenylist(@Value("${security.jwt.expiration:3600}") long expirationSec) {
+        Duration ttl = Duration.ofSeconds(Math.max(expirationSec, 1));
+        this.revoked = Caffeine.newBuilder().expireAfterWrite(ttl).build();
+        this.revokedBefore = Caffeine.newBuilder().expireAfterWrite(ttl).build();
+    }
+
+    public boolean isRevoked(Claims claims) {
+        String jti = claims.getId();
+        if (jti != null && revoked.getIfPresent(jti) != null) {
+            return true;
+        }
+        if (!(claims.get(JwtService.UID_CLAIM) instanceof Number uid)) {
+            return false;
+        }
+        Instant before = revokedBefore.getIfPresent(uid.longValue());
+        Date issuedAt = claims.getIssuedAt();
+        return before != null && (issuedAt == null || issuedAt.toInstant().isBefore(before));
+    }
+
+    public void revoke(String jti) {
+        revoked.put(jti, Boolean.TRUE);
+    }
+
+    /** Все токены пользователя, выданные до этого момента; для действия новой роли нужен новый логин. */
+    public void revokeUser(Long uid) {
+        // iat в токене — целые секунды: граница округляется вверх, чтобы отозвать и выданные в ту же секунду
+        Instant boundary = Instant.now().truncatedTo(ChronoUnit.SECONDS).plusSeconds(1);
+        revokedBefore.asMap().merge(uid, boundary, (a, b) -> a.isAfter(b) ? a : b);
+    }
+
+    /**
+     * {@code iat} для нового токена пользователя: не раньше границы отзыва, иначе токен, выданный
+     * в ту же секунду сразу после отзыва, был бы отозван сам.
+     */
+    Instant issuedAt(Long uid, Instant now) {
+        Instant before = uid == null ? null : revokedBefore.getIfPresent(uid);
+        return before != null && before.isAfter(now) ? before : now;
+    }
+}
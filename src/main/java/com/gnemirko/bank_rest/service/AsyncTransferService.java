@@ -0,0 +1,15 @@
+package com.gnemirko.bank_rest.service;
+
+import com.gnemirko.bank_rest.entity.Transaction;
+
+import java.math.BigDecimal;
+
+/**
+ * Асинхронные переводы: запрос сохраняется как PENDING и сразу возвращается,
+ * проведение идёт в фоне с сохранением порядка переводов по каждой карте.
+ */
+public interface AsyncTransferService {
+    Transaction submit(Long userId, Long fromCardId, Long toCardId, BigDecimal amount);
+    /** Перевод пользователя (карта-источник принадлежит {@code userId}) или 404. */
+    Transaction get(Long userId, Long transactionId);
+}
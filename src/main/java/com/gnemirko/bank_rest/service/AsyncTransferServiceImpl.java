@@ -0,0 +1,138 @@
+package com.gnemirko.bank_rest.service;
+
+import com.gnemirko.bank_rest.entity.Money;
+import com.gnemirko.bank_rest.entity.Transaction;
+import com.gnemirko.bank_rest.exception.ResourceNotFoundException;
+import com.gnemirko.bank_rest.repository.CardRepository;
+import com.gnemirko.bank_rest.repository.TransactionRepository;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityNotFoundException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Поток запроса только вставляет строку PENDING и возвращает её id — ожидание блокировок карт
+ * уходит на виртуальные потоки. Число одновременно проводимых переводов ограничено семафором,
+ * чтобы виртуальные потоки не выстраивались в очередь за соединениями пула.
+ * <p>
+ * Порядок по карте держит {@link PerCardSequencer} в пределах узла. Если узел упал,
+ * оставшиеся PENDING подхватывает {@link #resumeStale()}: {@link CardService#settle} блокирует
+ * строку журнала и проводит перевод не более одного раза.
+ */
+@Slf4j
+@Service
+public class AsyncTransferServiceImpl implements AsyncTransferService {
+
+    private final CardService cardService;
+    private final CardRepository cardRepository;
+    private final TransactionRepository transactionRepository;
+    private final LedgerWriter ledgerWriter;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration staleAfter;
+
+    private final ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor();
+    private final PerCardSequencer sequencer = new PerCardSequencer(workers);
+    private final Semaphore permits;
+    private final Set<Long> inFlight = ConcurrentHashMap.newKeySet();
+
+    public AsyncTransferServiceImpl(
+            CardService cardService,
+            CardRepository cardRepository,
+            TransactionRepository transactionRepository,
+            LedgerWriter ledgerWriter,
+            PlatformTransactionManager transactionManager,
+            @Value("${app.transfer.async.max-concurrency:8}") int maxConcurrency,
+            @Value("${app.transfer.async.stale-after:PT1M}") Duration staleAfter
+    ) {
+        this.cardService = cardService;
+        this.cardRepository = cardRepository;
+        this.transactionRepository = transactionRepository;
+        this.ledgerWriter = ledgerWriter;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.permits = new Semaphore(maxConcurrency);
+        this.staleAfter = staleAfter;
+    }
+
+    @Override
+    public Transaction submit(Long userId, Long fromCardId, Long toCardId, BigDecimal amount) {
+        if (Objects.equals(fromCardId, toCardId)) {
+            throw new IllegalArgumentException("Source and target cards must be different");
+        }
+        if (amount == null || amount.compareTo(BigDecimal.ZERO) <= 0) {
+            throw new IllegalArgumentException("Amount must be positive");
+        }
+        // владельца проверяем сразу: 403 лучше отдать синхронно, чем сохранять заведомо чужой перевод
+        Long owner = cardRepository.findOwnerIdById(fromCardId)
+                .orElseThrow(() -> new EntityNotFoundException("Card not found: " + fromCardId));
+        if (!owner.equals(userId)) {
+            throw new AccessDeniedException("Forbidden");
+        }
+
+        Transaction pending = transactionTemplate.execute(status -> ledgerWriter.appendPending(fromCardId, toCardId, Money.of(amount)));
+        dispatch(pending);
+        return pending;
+    }
+
+    @Override
+    public Transaction get(Long userId, Long transactionId) {
+        return transactionRepository.findById(transactionId)
+                .filter(tx -> cardRepository.findOwnerIdById(tx.getFromCardId())
+                        .map(userId::equals)
+                        .orElse(false))
+                .orElseThrow(() -> new ResourceNotFoundException("Transfer not found: " + transactionId));
+    }
+
+    @Scheduled(fixedDelayString = "${app.transfer.async.resume-interval-ms:30000}",
+            initialDelayString = "${app.transfer.async.resume-interval-ms:30000}")
+    public void resumeStale() {
+        List<Transaction> stale = transactionRepository.findPendingBefore(
+                Instant.now().minus(staleAfter), PageRequest.ofSize(500));
+        stale.forEach(this::dispatch);
+        if (!stale.isEmpty()) {
+            log.info("Resumed {} pending transfers", stale.size());
+        }
+    }
+
+    private void dispatch(Transaction pending) {
+        Long id = pending.getId();
+        if (!inFlight.add(id)) return;
+        sequencer.submit(List.of(pending.getFromCardId(), pending.getToCardId()), () -> settle(id));
+    }
+
+    private void settle(Long id) {
+        permits.acquireUninterruptibly();
+        try {
+            cardService.settle(id);
+        } catch (IllegalArgumentException | EntityNotFoundException | AccessDeniedException e) {
+            transactionTemplate.executeWithoutResult(status -> ledgerWriter.fail(id, e.getMessage()));
+        } catch (RuntimeException e) {
+            // конфликт или недоступность БД: строка остаётся PENDING, её подберёт resumeStale
+            log.warn("Transfer {} left pending: {}", id, e.toString());
+        } finally {
+            permits.release();
+            inFlight.remove(id);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        workers.shutdown();
+    }
+}
@@ -0,0 +1,28 @@
+package com.gnemirko.bank_rest.service;
+
+import com.gnemirko.bank_rest.entity.Money;
+import com.gnemirko.bank_rest.entity.Transaction;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Журнал дельт баланса со снимками. Запись — дешёвый INSERT без чтения и без блокировок;
+ * баланс карты восстанавливается из одного снимка и несвёрнутых с последней компактизации дельт.
+ */
+public interface BalanceJournal {
+
+    /** Дельта вне перевода (открытие карты, ручная установка баланса). Только внутри транзакции изменения. */
+    void record(Long cardId, Money delta);
+
+    /** Две дельты перевода: списание с источника и зачисление получателю. */
+    void recordTransfers(List<Transaction> transfers);
+
+    BigDecimal balanceOf(Long cardId);
+
+    /** Сворачивает накопленные дельты в снимки; возвращает число обновлённых снимков. */
+    int compact();
+
+    /** Переигрывает весь журнал параллельно по диапазонам карт, пересобирает снимки и сверяет с балансами карт. */
+    JournalRebuildReport rebuild();
+}
@@ -0,0 +1,170 @@
+package com.gnemirko.bank_rest.service;
+
+import com.gnemirko.bank_rest.entity.BalanceJournalEntry;
+import com.gnemirko.bank_rest.entity.Money;
+import com.gnemirko.bank_rest.entity.Transaction;
+import com.gnemirko.bank_rest.repository.BalanceJournalRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+/**
+ * Компактор и перестроение сериализуются advisory-блокировкой: компактор держит её эксклюзивно
+ * (он меняет и снимки, и флаг {@code compacted}), диапазоны перестроения — разделяемо, поэтому
+ * идут параллельно друг с другом. Обычные записи в журнал блокировку не берут.
+ */
+@Slf4j
+@Service
+public class BalanceJournalImpl implements BalanceJournal {
+
+    private static final long MAINTENANCE_LOCK = 0x6A6F75726EL;
+
+    private final BalanceJournalRepository journalRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int compactBatch;
+    private final int rebuildParallelism;
+    private final long rebuildRange;
+
+    public BalanceJournalImpl(
+            BalanceJournalRepository journalRepository,
+            PlatformTransactionManager transactionManager,
+            @Value("${app.journal.compact-batch:5000}") int compactBatch,
+            @Value("${app.journal.rebuild-parallelism:4}") int rebuildParallelism,
+            @Value("${app.journal.rebuild-range:10000}") long rebuildRange
+    ) {
+        this.journalRepository = journalRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.compactBatch = compactBatch;
+        this.rebuildParallelism = rebuildParallelism;
+        this.rebuildRange = rebuildRange;
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void record(Long cardId, Money delta) {
+        if (delta == null || delta.signum() == 0) return;
+        journalRepository.save(entry(cardId, delta, null, Instant.now()));
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordTransfers(List<Transaction> transfers) {
+        List<BalanceJournalEntry> entries = new ArrayList<>(transfers.size() * 2);
+        for (Transaction tx : transfers) {
+            Instant at = tx.getCreatedAt() != null ? tx.getCreatedAt() : Instant.now();
+            entries.add(entry(tx.getFromCardId(), tx.getAmount().negate(), tx.getId(), at));
+            entries.add(entry(tx.getToCardId(), tx.getAmount(), tx.getId(), at));
+        }
+        // INSERT-ы уйдут JDBC-батчем вместе со строками журнала переводов
+        journalRepository.saveAll(entries);
+    }
+
+    private static BalanceJournalEntry entry(Long cardId, Money delta, Long transactionId, Instant at) {
+        return BalanceJournalEntry.builder()
+                .cardId(cardId)
+                .delta(delta)
+                .transactionId(transactionId)
+                .createdAt(at)
+                .build();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public BigDecimal balanceOf(Long cardId) {
+        return journalRepository.currentBalance(cardId);
+    }
+
+    /**
+     * Проходы по {@code compact-batch} дельт, каждый в своей транзакции, пока очередь не опустеет.
+     * Между запусками у карты копятся только дельты за интервал — они и ограничивают скан при восстановлении.
+     */
+    @Override
+    public int compact() {
+        int total = 0;
+        int folded;
+        do {
+            folded = transactionTemplate.execute(status -> {
+                journalRepository.lockExclusive(MAINTENANCE_LOCK);
+                return journalRepository.compact(compactBatch);
+            });
+            total += folded;
+        } while (folded > 0);
+        if (total > 0) {
+            log.debug("Balance journal compacted: {} snapshots updated", total);
+        }
+        return total;
+    }
+
+    @Scheduled(fixedDelayString = "${app.journal.compact-interval-ms:60000}",
+            initialDelayString = "${app.journal.compact-interval-ms:60000}")
+    public void compactScheduled() {
+        compact();
+    }
+
+    @Override
+    public JournalRebuildReport rebuild() {
+        Object[] range = journalRepository.cardIdRange().get(0);
+        long min = ((Number) range[0]).longValue();
+        long max = ((Number) range[1]).longValue();
+
+        ExecutorService pool = Executors.newFixedThreadPool(rebuildParallelism);
+        try {
+            List<Future<JournalRebuildReport>> parts = new ArrayList<>();
+            for (long lo = min; lo <= max; lo += rebuildRange) {
+                long from = lo;
+                long to = Math.min(max, lo + rebuildRange - 1);
+                parts.add(pool.submit(() -> rebuildPart(from, to)));
+            }
+
+            long checked = 0;
+            int rebuilt = 0;
+            List<JournalRebuildReport.Mismatch> mismatches = new ArrayList<>();
+            for (Future<JournalRebuildReport> part : parts) {
+                JournalRebuildReport r = part.get();
+                checked += r.cardsChecked();
+                rebuilt += r.snapshotsRebuilt();
+                mismatches.addAll(r.mismatches());
+            }
+            if (!mismatches.isEmpty()) {
+                log.warn("Balance journal rebuild: {} of {} cards differ from the journal", mismatches.size(), checked);
+            }
+            return new JournalRebuildReport(checked, rebuilt, mismatches);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Journal rebuild interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Journal rebuild failed: " + e.getCause().getMessage(), e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private JournalRebuildReport rebuildPart(long lo, long hi) {
+        return transactionTemplate.execute(status -> {
+            journalRepository.lockShared(MAINTENANCE_LOCK);
+            int rebuilt = journalRepository.rebuildSnapshots(lo, hi);
+
+            List<Object[]> rows = journalRepository.replay(lo, hi);
+            List<JournalRebuildReport.Mismatch> mismatches = new ArrayList<>();
+            for (Object[] row : rows) {
+                BigDecimal stored = (BigDecimal) row[1];
+                BigDecimal replayed = (BigDecimal) row[2];
+                if (stored.compareTo(replayed) != 0) {
+                    mismatches.add(new JournalRebuildReport.Mismatch(((Number) row[0]).longValue(), stored, replayed));
+                }
+            }
+            return new JournalRebuildReport(rows.size(), rebuilt, mismatches);
+        });
+    }
+}
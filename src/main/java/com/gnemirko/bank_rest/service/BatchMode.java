@@ -0,0 +1,8 @@
+package com.gnemirko.bank_rest.service;
+
+public enum BatchMode {
+    /** Любая ошибка откатывает всю пачку. */
+    ALL_OR_NOTHING,
+    /** Ошибочные позиции пропускаются, остальные фиксируются. */
+    BEST_EFFORT
+}
@@ -0,0 +1,16 @@
+package com.gnemirko.bank_rest.service;
+
+import com.gnemirko.bank_rest.entity.CardStatus;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Выгрузка всех карт по фильтрам списка админа одним проходом курсора БД.
+ * Номера маскированы, как в {@link com.gnemirko.bank_rest.dto.CardResponse}; память не зависит от числа карт.
+ */
+public interface CardExportService {
+
+    /** Возвращает число выгруженных карт. */
+    long export(String ownerName, CardStatus status, String last4, ExportFormat format, OutputStream out) throws IOException;
+}
@@ -0,0 +1,143 @@
+package com.gnemirko.bank_rest.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.gnemirko.bank_rest.dto.CardResponse;
+import com.gnemirko.bank_rest.dto.CardRow;
+import com.gnemirko.bank_rest.entity.Card;
+import com.gnemirko.bank_rest.entity.CardStatus;
+import com.gnemirko.bank_rest.repository.CardRepository;
+import com.gnemirko.bank_rest.util.CardSpecification;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Строки читаются server-side курсором ({@code app.export.fetch-size} за раз) в read-only транзакции
+ * и сразу пишутся в ответ: в памяти одна пачка fetch size, а не вся выгрузка. Проекция
+ * {@link CardRow} не попадает в persistence context, так что и он не растёт.
+ * <p>
+ * Транзакция открывается здесь, а не аннотацией: выгрузка идёт в потоке {@code StreamingResponseBody},
+ * уже после выхода из контроллера.
+ */
+@Service
+public class CardExportServiceImpl implements CardExportService {
+
+    private static final String CSV_HEADER = "id,maskedNumber,ownerId,ownerName,expiry,status,balance";
+
+    private final CardRepository cardRepository;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate readOnlyTx;
+    private final int fetchSize;
+
+    public CardExportServiceImpl(
+            CardRepository cardRepository,
+            ObjectMapper objectMapper,
+            PlatformTransactionManager transactionManager,
+            @Value("${app.export.fetch-size:1000}") int fetchSize
+    ) {
+        this.cardRepository = cardRepository;
+        this.objectMapper = objectMapper;
+        this.readOnlyTx = new TransactionTemplate(transactionManager);
+        this.readOnlyTx.setReadOnly(true);
+        this.fetchSize = fetchSize;
+    }
+
+    @Override
+    public long export(String ownerName, CardStatus status, String last4, ExportFormat format, OutputStream out) throws IOException {
+        Specification<Card> spec = Specification.allOf(
+                CardSpecification.hasOwnerName(ownerName),
+                CardSpecification.hasStatus(status),
+                CardSpecification.hasLast4(last4)
+        );
+        try {
+            return readOnlyTx.execute(tx -> {
+                try (Stream<CardRow> rows = cardRepository.streamRows(spec, Sort.by("id"), fetchSize)) {
+                    return switch (format) {
+                        case NDJSON -> writeNdjson(rows.iterator(), out);
+                        case CSV -> writeCsv(rows.iterator(), out);
+                    };
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private long writeNdjson(Iterator<CardRow> rows, OutputStream out) throws IOException {
+        long count = 0;
+        try (SequenceWriter writer = objectMapper.writerFor(CardResponse.class)
+                .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+                .withRootValueSeparator("\n")
+                .writeValues(out)) {
+            while (rows.hasNext()) {
+                writer.write(CardResponse.from(rows.next()));
+                count++;
+            }
+        }
+        if (count > 0) out.write('\n');
+        out.flush();
+        return count;
+    }
+
+    private long writeCsv(Iterator<CardRow> rows, OutputStream out) throws IOException {
+        long count = 0;
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        writer.write(CSV_HEADER);
+        writer.write("\r\n");
+        while (rows.hasNext()) {
+            CardResponse card = CardResponse.from(rows.next());
+            writer.write(String.valueOf(card.id()));
+            writer.write(',');
+            writer.write(card.maskedNumber());
+            writer.write(',');
+            writer.write(card.owner() == null ? "" : String.valueOf(card.owner().id()));
+            writer.write(',');
+            writer.write(card.owner() == null ? "" : csv(card.owner().name()));
+            writer.write(',');
+            writer.write(card.expiry() == null ? "" : card.expiry().toString());
+            writer.write(',');
+            writer.write(card.status());
+            writer.write(',');
+            writer.write(card.balance() == null ? "" : card.balance().toPlainString());
+            writer.write("\r\n");
+            count++;
+        }
+        writer.flush();
+        return count;
+    }
+
+    /**
+     * Кавычки только когда нужны: запятая, кавычка или перевод строки внутри значения.
+     * Значение, которое табличный редактор принял бы за формулу (начинается с {@code = + - @}, TAB или CR),
+     * получает ведущий апостроф и выводится как текст.
+     */
+    static String csv(String value) {
+        if (value == null) return "";
+        if (!value.isEmpty() && "=+-@\t\r".indexOf(value.charAt(0)) >= 0) {
+            value = "'" + value;
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
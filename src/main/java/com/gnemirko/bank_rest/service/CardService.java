@@ -1,13 +1,18 @@
 package com.gnemirko.bank_rest.service;
 
 import com.gnemirko.bank_rest.dto.CardResponse;
+import com.gnemirko.bank_rest.dto.CardSeekPage;
+import com.gnemirko.bank_rest.dto.CardSliceResponse;
 import com.gnemirko.bank_rest.dto.CreateCardRequest;
 import com.gnemirko.bank_rest.entity.Card;
 import com.gnemirko.bank_rest.entity.CardStatus;
+import com.gnemirko.bank_rest.entity.Transaction;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
 import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 
@@ -17,11 +22,42 @@ public interface CardService {
     Card updateStatus(Long id, CardStatus newStatus);
     Card updateBalance(Long id, BigDecimal newBalance);
     void delete(Long id);
+    /** Переводит горячую карту на баланс из {@code shards} под-балансов (или увеличивает их число). */
+    Card enableBalanceSharding(Long id, int shards);
      Page<CardResponse> listAll(
             String ownerName,
             CardStatus status,
             String last4,
             Pageable pageable
     );
-    void transfer(Long fromCardId, Long toCardId, BigDecimal amount);
+    /**
+     * Keyset-вариант {@link #listAll}: карты по возрастанию id после {@code afterId},
+     * без OFFSET и без count-запроса.
+     */
+    CardSeekPage seekAll(String ownerName, CardStatus status, String last4, Long afterId, int size);
+    /**
+     * Карты пользователя {@code ownerId} с фильтрами. Без {@code count(*)}, если {@code count} не EXACT:
+     * для NONE отдаётся только признак следующей страницы, для ESTIMATED — оценка планировщика.
+     * Вместе со страницей — {@link #ownedCardsTag} из того же снимка.
+     */
+    TaggedView<CardSliceResponse> listOwned(Long ownerId, CardStatus status, String last4, Pageable pageable, CountMode count);
+    /** Карта пользователя с {@link #ownedCardTag} из того же снимка: 404, если её нет, 403 — если она чужая. */
+    TaggedView<CardResponse> getOwned(Long ownerId, Long id);
+    /**
+     * Отпечаток карты для ETag без загрузки сущности; пусто, если карты нет или она чужая
+     * (тогда ответ строится полным чтением, с его 404/403).
+     */
+    Optional<String> ownedCardTag(Long ownerId, Long id);
+    /** Отпечаток всех карт пользователя: меняется при любом изменении любой из них. */
+    Optional<String> ownedCardsTag(Long ownerId);
+    Transaction transfer(Long fromCardId, Long toCardId, BigDecimal amount);
+    /** Перевод от имени пользователя: обе карты должны принадлежать {@code ownerId}. */
+    Transaction transfer(Long ownerId, Long fromCardId, Long toCardId, BigDecimal amount);
+    /**
+     * Пакет переводов в одной транзакции: все карты блокируются один раз в порядке id,
+     * позиции применяются в памяти, изменения уходят одним flush при коммите.
+     */
+    List<TransferOutcome> transferBatch(List<TransferCommand> commands, BatchMode mode);
+    /** Проводит принятый асинхронно перевод (строка журнала в статусе PENDING). */
+    Transaction settle(Long transactionId);
 }
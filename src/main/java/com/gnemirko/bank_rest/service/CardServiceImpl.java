@@ -1,28 +1,43 @@
 package com.gnemirko.bank_rest.service;
 
 
+import com.gnemirko.bank_rest.config.ReplicaPins;
 import com.gnemirko.bank_rest.dto.CardResponse;
+import com.gnemirko.bank_rest.dto.CardRow;
+import com.gnemirko.bank_rest.dto.CardSeekPage;
+import com.gnemirko.bank_rest.dto.CardSliceResponse;
 import com.gnemirko.bank_rest.dto.CreateCardRequest;
 import com.gnemirko.bank_rest.entity.Card;
 import com.gnemirko.bank_rest.entity.CardStatus;
+import com.gnemirko.bank_rest.entity.Money;
+import com.gnemirko.bank_rest.entity.Transaction;
+import com.gnemirko.bank_rest.entity.TransactionStatus;
 import com.gnemirko.bank_rest.entity.User;
 import com.gnemirko.bank_rest.exception.ResourceNotFoundException;
 import com.gnemirko.bank_rest.repository.CardRepository;
 import com.gnemirko.bank_rest.repository.UserRepository;
+import com.gnemirko.bank_rest.retry.RetryOnConflict;
 import com.gnemirko.bank_rest.util.CardSpecification;
+import com.gnemirko.bank_rest.util.IdCursor;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.security.access.AccessDeniedException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Isolation;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.RequestParam;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.YearMonth;
-import java.util.Objects;
+import java.util.*;
 
 
 @Service
@@ -31,6 +46,15 @@ public class CardServiceImpl implements CardService {
 
     private final CardRepository cardRepository;
     private final UserRepository userRepository;
+    private final LedgerWriter ledgerWriter;
+    private final ShardedBalanceService shardedBalances;
+    private final BalanceJournal balanceJournal;
+    private final CardStats cardStats;
+    private final CardViewCache cardViews;
+    private final ReplicaPins replicaPins;
+
+    @Value("${app.transfer.mode:PESSIMISTIC}")
+    private TransferMode transferMode = TransferMode.PESSIMISTIC;
 
     @Override
     public Card get(Long id) {
@@ -50,22 +74,35 @@ public class CardServiceImpl implements CardService {
         Card card = Card.builder()
                 .owner(user)
                 .number(request.cardNumber())
+                .last4(Card.last4Of(request.cardNumber()))
                 .expiryDate(expiryDate)
                 .status(status)
-                .balance(request.balance())
+                .balance(request.balance() == null ? null : Money.of(request.balance()))
                 .build();
-        return cardRepository.save(card);
+        Card saved = cardRepository.save(card);
+        Money balance = saved.getBalance();
+        if (balance != null) {
+            balanceJournal.record(saved.getId(), balance);
+        }
+        cardStats.cardAdded(saved.getId(), saved.getStatus(), balance == null ? null : balance.toBigDecimal());
+        changed(userId, saved.getId());
+        return saved;
     }
 
     @Override
     @Transactional
     public Card updateStatus(Long id, CardStatus newStatus) {
         if (newStatus == null) throw new IllegalArgumentException("Status is required");
-        Card card = get(id);
+        // под блокировкой: баланс, переносимый в счётчиках между статусами, не меняется до коммита
+        Card card = cardRepository.findByIdForUpdate(id)
+                .orElseThrow(() -> new EntityNotFoundException("Card not found: " + id));
         if (card.getStatus() == CardStatus.EXPIRED && newStatus == CardStatus.ACTIVE) {
             throw new IllegalArgumentException("Cannot re-activate expired card");
         }
+        cardStats.statusChanged(id, card.getStatus(), newStatus,
+                card.getBalance() == null ? null : card.getBalance().toBigDecimal());
         card.setStatus(newStatus);
+        changed(ownerIdOf(card), id);
         return cardRepository.save(card);
     }
 
@@ -75,66 +112,338 @@ public class CardServiceImpl implements CardService {
         if (newBalance == null || newBalance.compareTo(BigDecimal.ZERO) < 0) {
             throw new IllegalArgumentException("Balance cannot be negative");
         }
-        Card card = get(id);
-        card.setBalance(newBalance);
+        Money target = Money.of(newBalance);
+        // под блокировкой: дельта в журнал считается от баланса, который никто не успел поменять
+        Card card = cardRepository.findByIdForUpdate(id)
+                .orElseThrow(() -> new EntityNotFoundException("Card not found: " + id));
+        Money delta;
+        if (card.isSharded()) {
+            delta = target.minus(shardedBalances.reset(card, target));
+        } else {
+            Money previous = card.getBalance() == null ? Money.ZERO : card.getBalance();
+            card.setBalance(target);
+            delta = target.minus(previous);
+        }
+        balanceJournal.record(id, delta);
+        cardStats.balanceChanged(id, card.getStatus(), delta.toBigDecimal());
+        changed(ownerIdOf(card), id);
         return cardRepository.save(card);
     }
 
+    @Override
+    @Transactional
+    public Card enableBalanceSharding(Long id, int shards) {
+        Card card = cardRepository.findByIdForUpdate(id)
+                .orElseThrow(() -> new EntityNotFoundException("Card not found: " + id));
+        changed(ownerIdOf(card), id);
+        return cardRepository.save(shardedBalances.enable(card, shards));
+    }
+
     @Override
     @Transactional
     public void delete(Long id) {
-        if (!cardRepository.existsById(id)) {
-            throw new EntityNotFoundException("Card not found: " + id);
-        }
-        cardRepository.deleteById(id);
+        Card card = cardRepository.findByIdForUpdate(id)
+                .orElseThrow(() -> new EntityNotFoundException("Card not found: " + id));
+        cardStats.cardRemoved(id, card.getStatus(), card.getBalance() == null ? null : card.getBalance().toBigDecimal());
+        changed(ownerIdOf(card), id);
+        cardRepository.delete(card);
+    }
+
+    @Override
+    @RetryOnConflict
+    @Transactional
+    public Transaction transfer(Long fromCardId, Long toCardId, BigDecimal amount) {
+        return doTransfer(null, fromCardId, toCardId, amount);
+    }
+
+    @Override
+    @RetryOnConflict
+    @Transactional
+    public Transaction transfer(Long ownerId, Long fromCardId, Long toCardId, BigDecimal amount) {
+        return doTransfer(ownerId, fromCardId, toCardId, amount);
     }
 
+    /**
+     * Проводит перевод, принятый асинхронно: строка журнала уже есть в статусе PENDING.
+     * Строка блокируется на время проведения, поэтому повторная доставка того же перевода
+     * (например, после рестарта) увидит итоговый статус и ничего не спишет.
+     */
     @Override
+    @RetryOnConflict
     @Transactional
-    public void transfer(Long fromCardId, Long toCardId, BigDecimal amount) {
+    public Transaction settle(Long transactionId) {
+        Transaction entry = ledgerWriter.lockEntry(transactionId)
+                .orElseThrow(() -> new EntityNotFoundException("Transfer not found: " + transactionId));
+        if (entry.getStatus() != TransactionStatus.PENDING) {
+            return entry;
+        }
+        Money amount = checkTransferArgs(entry.getFromCardId(), entry.getToCardId(), entry.getAmount());
+        Long owner = moveFunds(null, entry.getFromCardId(), entry.getToCardId(), amount);
+        changed(owner, entry.getFromCardId(), entry.getToCardId());
+        return ledgerWriter.complete(entry);
+    }
+
+    private Transaction doTransfer(Long ownerId, Long fromCardId, Long toCardId, BigDecimal amount) {
+        Money money = checkTransferArgs(fromCardId, toCardId, amount);
+        Long owner = moveFunds(ownerId, fromCardId, toCardId, money);
+        changed(owner, fromCardId, toCardId);
+        return ledgerWriter.append(fromCardId, toCardId, money);
+    }
+
+    /** BigDecimal из API переводится в {@link Money} один раз; дальше проверки и арифметика идут по long. */
+    private static Money checkTransferArgs(Long fromCardId, Long toCardId, BigDecimal amount) {
+        return checkTransferArgs(fromCardId, toCardId, amount == null ? null : Money.of(amount));
+    }
+
+    private static Money checkTransferArgs(Long fromCardId, Long toCardId, Money amount) {
         if (Objects.equals(fromCardId, toCardId)) {
             throw new IllegalArgumentException("Source and target cards must be different");
         }
-        if (amount == null || amount.compareTo(BigDecimal.ZERO) <= 0) {
+        if (amount == null || !amount.isPositive()) {
             throw new IllegalArgumentException("Amount must be positive");
         }
+        return amount;
+    }
 
+    /** Возвращает владельца обеих карт — по нему сбрасывается кэш списков. */
+    private Long moveFunds(Long ownerId, Long fromCardId, Long toCardId, Money amount) {
+        // условные UPDATE и @Version работают с колонкой balance; шардированная карта идёт через блокирующий путь
+        TransferMode mode = shardedBalances.isSharded(fromCardId) || shardedBalances.isSharded(toCardId)
+                ? TransferMode.PESSIMISTIC
+                : transferMode;
+        return switch (mode) {
+            case PESSIMISTIC -> transferLocked(ownerId, fromCardId, toCardId, amount);
+            case CONDITIONAL -> transferConditional(ownerId, fromCardId, toCardId, amount);
+            case OPTIMISTIC -> transferOptimistic(ownerId, fromCardId, toCardId, amount);
+        };
+    }
+
+    private Long transferLocked(Long ownerId, Long fromCardId, Long toCardId, Money amount) {
         Long firstId  = fromCardId < toCardId ? fromCardId : toCardId;
         Long secondId = fromCardId < toCardId ? toCardId   : fromCardId;
 
-        Card firstLocked = cardRepository.findByIdForUpdate(firstId)
-                .orElseThrow(() -> new EntityNotFoundException("Card not found: " + firstId));
-        Card secondLocked = cardRepository.findByIdForUpdate(secondId)
-                .orElseThrow(() -> new EntityNotFoundException("Card not found: " + secondId));
+        Card firstLocked = lockForTransfer(firstId);
+        Card secondLocked = lockForTransfer(secondId);
 
         Card from = (firstLocked.getId().equals(fromCardId)) ? firstLocked : secondLocked;
         Card to   = (firstLocked.getId().equals(toCardId))   ? firstLocked : secondLocked;
 
+        return applyTransfer(ownerId, from, to, amount);
+    }
+
+    /**
+     * Строка шардированной карты берётся FOR SHARE: она защищена от смены статуса, а параллельные
+     * переводы с её участием сериализуются только на строках шардов.
+     */
+    private Card lockForTransfer(Long id) {
+        Optional<Card> card = shardedBalances.isSharded(id)
+                ? cardRepository.findByIdForShare(id)
+                : cardRepository.findByIdForUpdate(id);
+        return card.orElseThrow(() -> new EntityNotFoundException("Card not found: " + id));
+    }
+
+    /**
+     * Без блокировок: карты читаются обычным SELECT, UPDATE при коммите проверяет {@code version}.
+     * Конфликт с параллельным переводом откатывает транзакцию, повтор делает
+     * {@link com.gnemirko.bank_rest.retry.ConflictRetryAspect} снаружи транзакции.
+     */
+    private Long transferOptimistic(Long ownerId, Long fromCardId, Long toCardId, Money amount) {
+        Card from = cardRepository.findById(fromCardId)
+                .orElseThrow(() -> new EntityNotFoundException("Card not found: " + fromCardId));
+        Card to = cardRepository.findById(toCardId)
+                .orElseThrow(() -> new EntityNotFoundException("Card not found: " + toCardId));
+
+        return applyTransfer(ownerId, from, to, amount);
+    }
+
+    private Long applyTransfer(Long ownerId, Card from, Card to, Money amount) {
+        validateTransfer(ownerId, from, to, amount);
+        move(from, to, amount);
+
+        cardRepository.save(from);
+        cardRepository.save(to);
+        return from.getOwner().getId();
+    }
+
+    @Override
+    @Transactional
+    public List<TransferOutcome> transferBatch(List<TransferCommand> commands, BatchMode mode) {
+        if (commands == null || commands.isEmpty()) {
+            throw new IllegalArgumentException("Batch must contain at least one transfer");
+        }
+
+        SortedSet<Long> ids = new TreeSet<>();
+        for (TransferCommand cmd : commands) {
+            if (cmd.fromCardId() != null) ids.add(cmd.fromCardId());
+            if (cmd.toCardId() != null) ids.add(cmd.toCardId());
+        }
+        Map<Long, Card> locked = new HashMap<>();
+        for (Card card : cardRepository.findAllByIdForUpdate(ids)) {
+            locked.put(card.getId(), card);
+        }
+
+        List<TransferOutcome> outcomes = new ArrayList<>(commands.size());
+        List<Transaction> entries = new ArrayList<>(commands.size());
+        for (int i = 0; i < commands.size(); i++) {
+            TransferCommand cmd = commands.get(i);
+            try {
+                if (Objects.equals(cmd.fromCardId(), cmd.toCardId())) {
+                    throw new IllegalArgumentException("Source and target cards must be different");
+                }
+                if (cmd.amount() == null || cmd.amount().signum() <= 0) {
+                    throw new IllegalArgumentException("Amount must be positive");
+                }
+                Money amount = Money.of(cmd.amount());
+                Card from = lockedCard(locked, cmd.fromCardId());
+                Card to = lockedCard(locked, cmd.toCardId());
+                // сначала все проверки, потом изменение: отклонённая позиция не трогает балансы
+                validateTransfer(cmd.ownerId(), from, to, amount);
+                move(from, to, amount);
+                changed(from.getOwner().getId(), from.getId(), to.getId());
+
+                Transaction entry = Transaction.builder()
+                        .fromCardId(from.getId())
+                        .toCardId(to.getId())
+                        .amount(amount)
+                        .build();
+                entries.add(entry);
+                outcomes.add(TransferOutcome.ok(i, entry));
+            } catch (IllegalArgumentException | EntityNotFoundException | AccessDeniedException e) {
+                if (mode == BatchMode.ALL_OR_NOTHING) {
+                    throw atIndex(i, e);
+                }
+                outcomes.add(TransferOutcome.failed(i, e));
+            }
+        }
+
+        // карты уже managed — отдельные save() не нужны, UPDATE-ы и INSERT-ы журнала уйдут батчем при коммите
+        ledgerWriter.appendAll(entries);
+        return outcomes;
+    }
+
+    private static Card lockedCard(Map<Long, Card> locked, Long id) {
+        Card card = locked.get(id);
+        if (card == null) throw new EntityNotFoundException("Card not found: " + id);
+        return card;
+    }
+
+    private static RuntimeException atIndex(int index, RuntimeException e) {
+        String message = "Batch item " + index + ": " + e.getMessage();
+        if (e instanceof EntityNotFoundException) return new EntityNotFoundException(message);
+        if (e instanceof IllegalArgumentException) return new IllegalArgumentException(message, e);
+        return e;
+    }
+
+    private void validateTransfer(Long ownerId, Card from, Card to, Money amount) {
         if (from.getOwner() == null || to.getOwner() == null ||
                 !Objects.equals(from.getOwner().getId(), to.getOwner().getId())) {
             throw new IllegalArgumentException("Transfer is only allowed between cards of the same user");
         }
+        validateOwnedBy(from, ownerId);
 
         validateActive(from);
         validateActive(to);
         validateNotExpired(from);
         validateNotExpired(to);
 
-        if (from.getBalance() == null) from.setBalance(BigDecimal.ZERO);
-        if (to.getBalance() == null)   to.setBalance(BigDecimal.ZERO);
-
-        if (from.getBalance().compareTo(amount) < 0) {
+        // у шардированной карты сумму проверяет само списание под блокировкой шардов
+        if (!from.isSharded() && (from.getBalance() == null || from.getBalance().lessThan(amount))) {
             throw new IllegalArgumentException("Insufficient funds");
         }
+    }
 
-        from.setBalance(from.getBalance().subtract(amount));
-        to.setBalance(to.getBalance().add(amount));
+    /**
+     * Новые балансы несшардированных карт считаются до любых изменений: переполнение зачисления
+     * отклоняет перевод, пока ни карта, ни шард не тронуты (пакет BEST_EFFORT идёт дальше).
+     * Дальше списание идёт первым: если шардам не хватило суммы, ни одна из карт не изменена.
+     * Шарды блокируются в порядке id карт, как строки карт в {@link #transferLocked}: если обе карты
+     * шардированы и получатель идёт раньше, его шард для зачисления блокируется до списания.
+     */
+    private void move(Card from, Card to, Money amount) {
+        Money debited = from.isSharded() ? null : from.getBalance().minus(amount);
+        Money credited = to.isSharded() ? null : (to.getBalance() == null ? Money.ZERO : to.getBalance()).plus(amount);
+
+        Integer creditShard = from.isSharded() && to.isSharded() && to.getId() < from.getId()
+                ? shardedBalances.lockCreditShard(to)
+                : null;
+        if (from.isSharded()) {
+            shardedBalances.debit(from, amount);
+        } else {
+            from.setBalance(debited);
+        }
+        if (creditShard != null) {
+            shardedBalances.credit(to, creditShard, amount);
+        } else if (to.isSharded()) {
+            shardedBalances.credit(to, amount);
+        } else {
+            to.setBalance(credited);
+        }
+    }
 
+    /**
+     * Перевод двумя условными UPDATE без предварительного SELECT ... FOR UPDATE.
+     * Строки карт блокируются только самими statement-ами (до коммита), Java-валидация
+     * под блокировкой не выполняется. Statement-ы идут в порядке возрастания id карт,
+     * как и блокировки в {@link #transferLocked}, поэтому встречные переводы не дают deadlock.
+     * Причина отказа выясняется отдельным чтением только когда UPDATE не затронул строку.
+     */
+    private Long transferConditional(Long ownerId, Long fromCardId, Long toCardId, Money amount) {
+        Long owner = ownerId != null ? ownerId : cardRepository.findOwnerIdById(fromCardId)
+                .orElseThrow(() -> new EntityNotFoundException("Card not found: " + fromCardId));
 
-        cardRepository.save(from);
-        cardRepository.save(to);
+        if (fromCardId < toCardId) {
+            debit(fromCardId, owner, amount, ownerId);
+            credit(toCardId, owner, amount, ownerId);
+        } else {
+            credit(toCardId, owner, amount, ownerId);
+            debit(fromCardId, owner, amount, ownerId);
+        }
+        return owner;
+    }
+
+    private void debit(Long cardId, Long owner, Money amount, Long caller) {
+        if (cardRepository.debitIfAllowed(cardId, owner, amount.minor()) == 0) {
+            throw rejection(cardId, owner, amount, caller);
+        }
+    }
+
+    private void credit(Long cardId, Long owner, Money amount, Long caller) {
+        if (cardRepository.creditIfAllowed(cardId, owner, amount.minor()) == 0) {
+            throw rejection(cardId, owner, null, caller);
+        }
     }
 
+    /** Диагностика отказа условного UPDATE: те же проверки и сообщения, что и у блокирующей стратегии. */
+    private RuntimeException rejection(Long cardId, Long owner, Money debitAmount, Long caller) {
+        Card card = cardRepository.findById(cardId).orElse(null);
+        if (card == null) {
+            return new EntityNotFoundException("Card not found: " + cardId);
+        }
+        if (card.isSharded()) {
+            // карту шардировали на другом узле: повтор перевода пойдёт через блокирующий путь
+            shardedBalances.markSharded(cardId);
+            return new ObjectOptimisticLockingFailureException(Card.class, cardId);
+        }
+        if (card.getOwner() == null || !Objects.equals(card.getOwner().getId(), owner)) {
+            return caller != null
+                    ? new AccessDeniedException("Forbidden")
+                    : new IllegalArgumentException("Transfer is only allowed between cards of the same user");
+        }
+        try {
+            validateActive(card);
+            validateNotExpired(card);
+        } catch (IllegalArgumentException e) {
+            return e;
+        }
+        if (debitAmount != null && (card.getBalance() == null || card.getBalance().lessThan(debitAmount))) {
+            return new IllegalArgumentException("Insufficient funds");
+        }
+        // строка изменилась между UPDATE и диагностическим чтением
+        return new IllegalArgumentException("Card state changed concurrently, retry the transfer");
+    }
+
+    @Override
+    @Transactional(readOnly = true)
     public Page<CardResponse> listAll(
             String ownerName,
             CardStatus status,
@@ -147,12 +456,104 @@ public class CardServiceImpl implements CardService {
                 CardSpecification.hasLast4(last4)
         );
 
-        return cardRepository.findAll(spec, pageable).map(CardResponse::from);
+        return cardRepository.findRowPage(spec, pageable).map(CardResponse::from);
+    }
+
+    /** Берётся на строку больше страницы: по ней видно, есть ли продолжение. */
+    @Override
+    @Transactional(readOnly = true)
+    public CardSeekPage seekAll(String ownerName, CardStatus status, String last4, Long afterId, int size) {
+        Specification<Card> spec = Specification.allOf(
+                CardSpecification.hasOwnerName(ownerName),
+                CardSpecification.hasStatus(status),
+                CardSpecification.hasLast4(last4),
+                CardSpecification.idAfter(afterId)
+        );
+
+        List<CardRow> rows = cardRepository.findRows(spec, Sort.by("id"), size + 1);
+        boolean hasMore = rows.size() > size;
+        List<CardRow> page = hasMore ? rows.subList(0, size) : rows;
+        String next = hasMore ? IdCursor.encode(page.getLast().id()) : null;
+        return new CardSeekPage(page.stream().map(CardResponse::from).toList(), next);
+    }
+
+    @Override
+    @Transactional(readOnly = true, isolation = Isolation.REPEATABLE_READ)
+    public TaggedView<CardSliceResponse> listOwned(Long ownerId, CardStatus status, String last4, Pageable pageable, CountMode count) {
+        Specification<Card> spec = Specification.allOf(
+                CardSpecification.hasStatus(status),
+                CardSpecification.hasLast4(last4),
+                (root, query, cb) -> cb.equal(root.get("owner").get("id"), ownerId)
+        );
+
+        Slice<CardRow> slice = cardRepository.findRowSlice(spec, pageable);
+        Long total = null;
+        boolean estimated = false;
+        if (count != CountMode.NONE) {
+            if (!slice.hasNext() && (slice.hasContent() || pageable.getOffset() == 0)) {
+                // последняя страница — итог известен без отдельного запроса
+                total = pageable.getOffset() + slice.getNumberOfElements();
+            } else if (count == CountMode.EXACT) {
+                total = cardRepository.count(spec);
+            } else {
+                total = cardRepository.estimateOwnedCount(ownerId, status, last4);
+                estimated = true;
+            }
+        }
+        CardSliceResponse page = new CardSliceResponse(
+                slice.getContent().stream().map(CardResponse::from).toList(),
+                slice.getNumber(),
+                slice.getSize(),
+                slice.hasNext(),
+                total,
+                estimated);
+        return new TaggedView<>(page, cardRepository.ownedCardsTag(ownerId).orElse(null));
+    }
+
+    @Override
+    @Transactional(readOnly = true, isolation = Isolation.REPEATABLE_READ)
+    public TaggedView<CardResponse> getOwned(Long ownerId, Long id) {
+        Card card = cardRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Card: " + id));
+        if (card.getOwner() == null || !ownerId.equals(card.getOwner().getId())) {
+            throw new AccessDeniedException("Forbidden");
+        }
+        // REPEATABLE READ: отпечаток считается по тому же снимку, что и карта, а не по более позднему коммиту
+        return new TaggedView<>(CardResponse.from(card), cardRepository.ownedCardTag(ownerId, id).orElse(null));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<String> ownedCardTag(Long ownerId, Long id) {
+        return cardRepository.ownedCardTag(ownerId, id);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<String> ownedCardsTag(Long ownerId) {
+        return cardRepository.ownedCardsTag(ownerId);
     }
 
     /* ===== helpers ===== */
 
+    /**
+     * Карты владельца изменились: сбрасываются их представления в кэше, а владелец после коммита
+     * читает с primary. Закрепление идёт отсюда, а не по пользователю запроса: запись могла пройти
+     * в фоновом потоке (групповой коммит, асинхронное проведение).
+     */
+    private void changed(Long ownerId, Long... cardIds) {
+        cardViews.evict(ownerId, cardIds);
+        replicaPins.pin(ownerId);
+    }
+
+    private static Long ownerIdOf(Card card) {
+        return card.getOwner() == null ? null : card.getOwner().getId();
+    }
+
     private void validateNotExpired(Card card) {
+        if (card.getStatus() == CardStatus.EXPIRED) {
+            throw new IllegalArgumentException("Card is expired");
+        }
         if (card.getExpiryDate() == null) return;
         var ym = YearMonth.from(card.getExpiryDate().toLocalDate());
         if (LocalDate.now().isAfter(ym.atEndOfMonth())) {
@@ -160,6 +561,12 @@ public class CardServiceImpl implements CardService {
         }
     }
 
+    private void validateOwnedBy(Card card, Long ownerId) {
+        if (ownerId != null && !ownerId.equals(card.getOwner().getId())) {
+            throw new AccessDeniedException("Forbidden");
+        }
+    }
+
     private void validateActive(Card card) {
         if (card.getStatus() != null && "BLOCKED".equals(card.getStatus().name())) {
             throw new IllegalArgumentException("Card is blocked");
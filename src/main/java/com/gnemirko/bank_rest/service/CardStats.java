@@ -0,0 +1,36 @@
+package com.gnemirko.bank_rest.service;
+
+import com.gnemirko.bank_rest.dto.CardStatsResponse;
+import com.gnemirko.bank_rest.entity.CardStatus;
+
+import java.math.BigDecimal;
+
+/**
+ * Число карт и сумма балансов по статусам, поддерживаемые приращениями в той же транзакции,
+ * что и изменение карты. Чтение — сумма нескольких строк счётчиков вместо агрегата по всей {@code card}.
+ * <p>
+ * Перевод счётчики не трогает: обе карты перевода активны, сумма по ACTIVE не меняется.
+ * Расхождения (правки мимо сервиса, карты без статуса) исправляет периодическая {@link #reconcile() сверка}.
+ */
+public interface CardStats {
+
+    /** Новая карта с балансом {@code balance}. Как и остальные изменения — только внутри транзакции карты. */
+    void cardAdded(Long cardId, CardStatus status, BigDecimal balance);
+
+    /** Карта с балансом {@code balance} удалена. */
+    void cardRemoved(Long cardId, CardStatus status, BigDecimal balance);
+
+    /** Баланс карты изменился на {@code delta} без смены статуса. */
+    void balanceChanged(Long cardId, CardStatus status, BigDecimal delta);
+
+    /** Карта с балансом {@code balance} перешла из статуса {@code from} в {@code to}. */
+    void statusChanged(Long cardId, CardStatus from, CardStatus to, BigDecimal balance);
+
+    CardStatsResponse snapshot();
+
+    /**
+     * Сравнивает счётчики с полным агрегатом по одному снимку БД и дописывает разницу приращением.
+     * Возвращает число статусов, по которым нашлось расхождение.
+     */
+    int reconcile();
+}
@@ -0,0 +1,166 @@
+package com.gnemirko.bank_rest.service;
+
+import com.gnemirko.bank_rest.dto.CardStatsResponse;
+import com.gnemirko.bank_rest.entity.CardStatus;
+import com.gnemirko.bank_rest.repository.CardStatsRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Приращение — один upsert в строку {@code (status, id карты % slots)} под блокировкой до коммита транзакции карты:
+ * изменения разных карт одного статуса расходятся по слотам, а не сериализуются на одной строке.
+ * <p>
+ * Сверка читает агрегат по {@code card} и сумму счётчиков в одной REPEATABLE READ транзакции: счётчики
+ * меняются в тех же транзакциях, что и карты, поэтому в общем снимке они расходятся ровно на дрейф.
+ * Поправка дописывается приращением в слот 0 отдельной транзакцией — изменения после снимка
+ * учитываются сами и не теряются. Сверка идёт на primary: поправка прошлого запуска должна быть видна.
+ */
+@Slf4j
+@Service
+public class CardStatsImpl implements CardStats {
+
+    private static final long RECONCILE_LOCK = 0x6361726473747473L;
+
+    private record Totals(long cards, BigDecimal balance) {
+        static final Totals ZERO = new Totals(0, BigDecimal.ZERO);
+    }
+
+    private record Snapshot(Map<CardStatus, Totals> actual, Map<CardStatus, Totals> counted) {}
+
+    private final CardStatsRepository statsRepository;
+    private final TransactionTemplate writeTx;
+    private final TransactionTemplate snapshotTx;
+    private final int slots;
+
+    public CardStatsImpl(
+            CardStatsRepository statsRepository,
+            PlatformTransactionManager transactionManager,
+            @Value("${app.stats.slots:16}") int slots
+    ) {
+        if (slots < 1) {
+            throw new IllegalArgumentException("stats slots must be positive");
+        }
+        this.statsRepository = statsRepository;
+        this.writeTx = new TransactionTemplate(transactionManager);
+        this.snapshotTx = new TransactionTemplate(transactionManager);
+        this.snapshotTx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.snapshotTx.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        this.slots = slots;
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void cardAdded(Long cardId, CardStatus status, BigDecimal balance) {
+        add(status, cardId, 1, balance);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void cardRemoved(Long cardId, CardStatus status, BigDecimal balance) {
+        add(status, cardId, -1, balance == null ? null : balance.negate());
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void balanceChanged(Long cardId, CardStatus status, BigDecimal delta) {
+        add(status, cardId, 0, delta);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void statusChanged(Long cardId, CardStatus from, CardStatus to, BigDecimal balance) {
+        if (from == to) return;
+        BigDecimal moved = balance == null ? BigDecimal.ZERO : balance;
+        // строки слота берутся в порядке статусов: встречные смены статуса не дают deadlock
+        if (from != null && (to == null || from.ordinal() < to.ordinal())) {
+            add(from, cardId, -1, moved.negate());
+            add(to, cardId, 1, moved);
+        } else {
+            add(to, cardId, 1, moved);
+            add(from, cardId, -1, moved.negate());
+        }
+    }
+
+    private void add(CardStatus status, Long cardId, long cards, BigDecimal balance) {
+        if (status == null) return;
+        BigDecimal delta = balance == null ? BigDecimal.ZERO : balance;
+        if (cards == 0 && delta.signum() == 0) return;
+        statsRepository.add(status.name(), slotOf(cardId), cards, delta);
+    }
+
+    private int slotOf(Long cardId) {
+        return cardId == null ? 0 : (int) Math.floorMod(cardId, (long) slots);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CardStatsResponse snapshot() {
+        Map<CardStatus, Totals> counted = byStatus(statsRepository.totals());
+        List<CardStatsResponse.StatusStats> byStatus = new ArrayList<>();
+        long cards = 0;
+        BigDecimal balance = BigDecimal.ZERO;
+        for (CardStatus status : CardStatus.values()) {
+            Totals t = counted.getOrDefault(status, Totals.ZERO);
+            byStatus.add(new CardStatsResponse.StatusStats(status, t.cards(), t.balance()));
+            cards += t.cards();
+            balance = balance.add(t.balance());
+        }
+        return new CardStatsResponse(byStatus, cards, balance);
+    }
+
+    @Override
+    public int reconcile() {
+        Integer fixed = writeTx.execute(tx -> {
+            // блокировка держится до коммита поправки: следующий запуск на любом узле увидит её в своём снимке
+            if (!statsRepository.tryLock(RECONCILE_LOCK)) return 0;
+            Snapshot snapshot = snapshotTx.execute(s -> new Snapshot(
+                    byStatus(statsRepository.aggregate()),
+                    byStatus(statsRepository.totals())));
+
+            int drifted = 0;
+            for (CardStatus status : CardStatus.values()) {
+                Totals actual = snapshot.actual().getOrDefault(status, Totals.ZERO);
+                Totals counted = snapshot.counted().getOrDefault(status, Totals.ZERO);
+                long cards = actual.cards() - counted.cards();
+                BigDecimal balance = actual.balance().subtract(counted.balance());
+                if (cards != 0 || balance.signum() != 0) {
+                    log.warn("Card stats drift for {}: {} cards, {} balance — corrected", status, cards, balance);
+                    statsRepository.add(status.name(), 0, cards, balance);
+                    drifted++;
+                }
+            }
+            return drifted;
+        });
+        return fixed == null ? 0 : fixed;
+    }
+
+    @Scheduled(fixedDelayString = "${app.stats.reconcile-interval-ms:3600000}",
+            initialDelayString = "${app.stats.reconcile-interval-ms:3600000}")
+    public void reconcileScheduled() {
+        reconcile();
+    }
+
+    private static Map<CardStatus, Totals> byStatus(List<Object[]> rows) {
+        Map<CardStatus, Totals> result = new EnumMap<>(CardStatus.class);
+        for (Object[] row : rows) {
+            CardStatus status = CardStatus.valueOf((String) row[0]);
+            long cards = row[1] == null ? 0 : ((Number) row[1]).longValue();
+            BigDecimal balance = row[2] == null ? BigDecimal.ZERO : new BigDecimal(row[2].toString());
+            result.put(status, new Totals(cards, balance));
+        }
+        return result;
+    }
+}
@@ -0,0 +1,168 @@
+package com.gnemirko.bank_rest.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.gnemirko.bank_rest.dto.CardResponse;
+import com.gnemirko.bank_rest.dto.CardSliceResponse;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Supplier;
+
+/**
+ * Кэш представлений карт в памяти узла: карта по id и страницы списка по владельцу
+ * (ключ — владелец, внутри — строка запроса) вместе с их отпечатками для ETag. Ограничен по размеру и по TTL, метрики —
+ * {@code cache.gets/puts/evictions} с тегами {@code cache=cards.byId|cards.byOwner}.
+ * <p>
+ * Изменения карт вызывают {@link #evict}: сразу и ещё раз после завершения транзакции, когда
+ * новое значение уже видно другим. Чтение, начавшееся до коммита, могло загрузить старое значение —
+ * поэтому у каждого ключа есть метка последней инвалидации (полосы по хэшу ключа), и загруженное
+ * кладётся в кэш, только если метка не сдвинулась за время загрузки. Проверка повторяется после
+ * записи: инвалидация, пришедшая между проверкой и записью, тоже не оставит старое значение.
+ * <p>
+ * Последняя линия — отпечаток: вызывающий передаёт текущий отпечаток из БД, и запись с другим отпечатком
+ * не отдаётся, а перезагружается. Так старое значение не переживёт инвалидацию, которая до этого узла
+ * не дошла (запись прошла на другом узле) или разминулась с загрузкой.
+ * <p>
+ * {@code settle-after-write} — сколько после инвалидации ключа загруженное не кэшируется вовсе;
+ * с репликой чтения выставляется не меньше её отставания, без реплики 0.
+ */
+@Component
+public class CardViewCache {
+
+    private static final int STRIPES = 1024;
+
+    private final Cache<Long, TaggedView<CardResponse>> byId;
+    private final Cache<Long, Map<String, TaggedView<CardSliceResponse>>> byOwner;
+    private final AtomicLongArray cardMarks = new AtomicLongArray(STRIPES);
+    private final AtomicLongArray ownerMarks = new AtomicLongArray(STRIPES);
+    private final long origin = System.nanoTime();
+    private final int maxQueriesPerOwner;
+    private final long settleNanos;
+
+    public CardViewCache(
+            MeterRegistry meterRegistry,
+            @Value("${app.cache.cards.ttl:30s}") Duration ttl,
+            @Value("${app.cache.cards.max-size:10000}") long maxSize,
+            @Value("${app.cache.cards.max-queries-per-owner:16}") int maxQueriesPerOwner,
+            @Value("${app.cache.cards.settle-after-write:0s}") Duration settleAfterWrite
+    ) {
+        this.byId = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        this.byOwner = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        this.maxQueriesPerOwner = maxQueriesPerOwner;
+        this.settleNanos = settleAfterWrite.toNanos();
+        CaffeineCacheMetrics.monitor(meterRegistry, byId, "cards.byId");
+        CaffeineCacheMetrics.monitor(meterRegistry, byOwner, "cards.byOwner");
+    }
+
+    /**
+     * Карта пользователя {@code ownerId}; чужая карта из кэша — 403, как и при чтении из БД.
+     * {@code currentTag} — отпечаток карты в БД сейчас; null (карты нет или она чужая) — всегда загрузка.
+     */
+    public TaggedView<CardResponse> ownedCard(Long ownerId, Long cardId, String currentTag,
+                                              Supplier<TaggedView<CardResponse>> loader) {
+        TaggedView<CardResponse> card = byId.getIfPresent(cardId);
+        if (!current(card, currentTag)) {
+            long mark = cardMarks.get(stripe(cardId));
+            card = loader.get();
+            if (cacheable(mark)) {
+                byId.put(cardId, card);
+                if (cardMarks.get(stripe(cardId)) != mark) byId.invalidate(cardId);
+            }
+        }
+        CardResponse.Owner owner = card.view().owner();
+        if (owner == null || !ownerId.equals(owner.id())) {
+            throw new AccessDeniedException("Forbidden");
+        }
+        return card;
+    }
+
+    /**
+     * Страница карт владельца для запроса {@code query} (фильтры, страница, режим подсчёта);
+     * {@code currentTag} — отпечаток всех карт владельца в БД сейчас.
+     */
+    public TaggedView<CardSliceResponse> ownedCards(Long ownerId, String query, String currentTag,
+                                                    Supplier<TaggedView<CardSliceResponse>> loader) {
+        Map<String, TaggedView<CardSliceResponse>> queries = byOwner.getIfPresent(ownerId);
+        TaggedView<CardSliceResponse> page = queries == null ? null : queries.get(query);
+        if (current(page, currentTag)) return page;
+
+        long mark = ownerMarks.get(stripe(ownerId));
+        page = loader.get();
+        if (cacheable(mark)) {
+            Map<String, TaggedView<CardSliceResponse>> target = byOwner.get(ownerId, id -> new ConcurrentHashMap<>());
+            if (target.size() < maxQueriesPerOwner) {
+                target.put(query, page);
+            }
+            if (ownerMarks.get(stripe(ownerId)) != mark) byOwner.invalidate(ownerId);
+        }
+        return page;
+    }
+
+    /**
+     * Карты {@code cardIds} владельца {@code ownerId} изменились (владелец может быть null).
+     * Внутри транзакции инвалидация повторяется после её завершения.
+     */
+    public void evict(Long ownerId, Long... cardIds) {
+        invalidate(ownerId, cardIds);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    invalidate(ownerId, cardIds);
+                }
+            });
+        }
+    }
+
+    private void invalidate(Long ownerId, Long... cardIds) {
+        for (Long cardId : cardIds) {
+            if (cardId == null) continue;
+            mark(cardMarks, cardId);
+            byId.invalidate(cardId);
+        }
+        if (ownerId != null) {
+            mark(ownerMarks, ownerId);
+            byOwner.invalidate(ownerId);
+        }
+    }
+
+    /** Метка — время инвалидации от старта кэша; строго растёт, даже если две инвалидации пришлись на один тик. */
+    private void mark(AtomicLongArray marks, Long key) {
+        long now = elapsed();
+        marks.updateAndGet(stripe(key), prev -> Math.max(prev + 1, now));
+    }
+
+    private static boolean current(TaggedView<?> cached, String currentTag) {
+        return cached != null && currentTag != null && currentTag.equals(cached.tag());
+    }
+
+    private boolean cacheable(long mark) {
+        return mark == 0 || elapsed() - mark >= settleNanos;
+    }
+
+    private long elapsed() {
+        return System.nanoTime() - origin + 1;
+    }
+
+    private static int stripe(Long key) {
+        return Long.hashCode(key * 0x9E3779B97F4A7C15L) & (STRIPES - 1);
+    }
+}
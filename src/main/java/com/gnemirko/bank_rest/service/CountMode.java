@@ -0,0 +1,11 @@
+package com.gnemirko.bank_rest.service;
+
+/** Как считать общее число строк списка. */
+public enum CountMode {
+    /** Не считать: только признак следующей страницы. */
+    NONE,
+    /** Оценка планировщика по статистике таблицы, без чтения строк. */
+    ESTIMATED,
+    /** Точный {@code count(*)} с теми же фильтрами. */
+    EXACT
+}
@@ -0,0 +1,26 @@
+package com.gnemirko.bank_rest.service;
+
+import org.springframework.http.MediaType;
+
+public enum ExportFormat {
+    /** Одна карта — одна строка JSON. */
+    NDJSON(MediaType.parseMediaType("application/x-ndjson"), "ndjson"),
+    /** Заголовок и строки через запятую, RFC 4180. */
+    CSV(MediaType.parseMediaType("text/csv;charset=UTF-8"), "csv");
+
+    private final MediaType mediaType;
+    private final String extension;
+
+    ExportFormat(MediaType mediaType, String extension) {
+        this.mediaType = mediaType;
+        this.extension = extension;
+    }
+
+    public MediaType mediaType() {
+        return mediaType;
+    }
+
+    public String extension() {
+        return extension;
+    }
+}
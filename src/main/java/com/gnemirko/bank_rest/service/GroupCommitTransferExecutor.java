@@ -0,0 +1,201 @@
+package com.gnemirko.bank_rest.service;
+
+import com.gnemirko.bank_rest.entity.Transaction;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.*;
+
+/**
+ * Групповой коммит одиночных переводов: переводы, пришедшие в пределах окна
+ * ({@code app.transfer.group-commit.window} или {@code max-batch} штук), проводятся одной транзакцией
+ * через {@link CardService#transferBatch} в режиме {@link BatchMode#BEST_EFFORT} — карты блокируются
+ * один раз в порядке id, коммит и fsync делятся на всю пачку.
+ * <p>
+ * Каждая позиция проверяется до изменения балансов, поэтому отклонённый перевод не задевает соседей:
+ * его вызывающий получает то же исключение, что и при одиночном переводе. Если пачка откатилась целиком
+ * (конфликт, deadlock, недоступность БД), её переводы проводятся по одному. Future вызывающего
+ * завершается только после коммита.
+ * <p>
+ * Пока пачка коммитится, следующая копится в очереди: под нагрузкой пачки растут сами,
+ * в простое перевод ждёт не дольше окна. Выключено по умолчанию — тогда перевод идёт напрямую.
+ */
+@Slf4j
+@Component
+public class GroupCommitTransferExecutor {
+
+    private record Pending(TransferCommand command, CompletableFuture<Transaction> result) {}
+
+    private final CardService cardService;
+    private final boolean enabled;
+    private final long windowNanos;
+    private final int maxBatch;
+    private final BlockingQueue<Pending> queue;
+    private final Semaphore committerSlots;
+    private final ExecutorService committers;
+    private final Thread collector;
+    private volatile boolean running;
+
+    public GroupCommitTransferExecutor(
+            CardService cardService,
+            @Value("${app.transfer.group-commit.enabled:false}") boolean enabled,
+            @Value("${app.transfer.group-commit.window:2ms}") Duration window,
+            @Value("${app.transfer.group-commit.max-batch:64}") int maxBatch,
+            @Value("${app.transfer.group-commit.committers:2}") int committers,
+            @Value("${app.transfer.group-commit.queue-capacity:10000}") int queueCapacity
+    ) {
+        if (maxBatch < 1 || committers < 1) {
+            throw new IllegalArgumentException("group-commit max-batch and committers must be positive");
+        }
+        this.cardService = cardService;
+        this.enabled = enabled;
+        this.windowNanos = window.toNanos();
+        this.maxBatch = maxBatch;
+        this.queue = new LinkedBlockingQueue<>(queueCapacity);
+        this.committerSlots = new Semaphore(committers);
+        this.committers = Executors.newFixedThreadPool(committers, Thread.ofPlatform().name("group-commit-", 0).factory());
+        this.collector = Thread.ofPlatform().daemon().name("group-commit-collector").unstarted(this::collect);
+    }
+
+    @PostConstruct
+    void start() {
+        if (!enabled) return;
+        running = true;
+        collector.start();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /** Перевод от имени {@code ownerId}; возвращается после коммита пачки, в которую он попал. */
+    public Transaction transfer(Long ownerId, Long fromCardId, Long toCardId, BigDecimal amount) {
+        if (!running) {
+            return cardService.transfer(ownerId, fromCardId, toCardId, amount);
+        }
+        try {
+            return submit(ownerId, fromCardId, toCardId, amount).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
+            throw e;
+        }
+    }
+
+    public CompletableFuture<Transaction> submit(Long ownerId, Long fromCardId, Long toCardId, BigDecimal amount) {
+        // заведомо невалидный перевод в очередь не ставим
+        if (Objects.equals(fromCardId, toCardId)) {
+            throw new IllegalArgumentException("Source and target cards must be different");
+        }
+        if (amount == null || amount.signum() <= 0) {
+            throw new IllegalArgumentException("Amount must be positive");
+        }
+        Pending pending = new Pending(new TransferCommand(ownerId, fromCardId, toCardId, amount), new CompletableFuture<>());
+        if (!running || !queue.offer(pending)) {
+            // очередь переполнена или узел останавливается: проводим в потоке вызывающего
+            commitSingly(pending);
+        }
+        return pending.result();
+    }
+
+    private void collect() {
+        while (running) {
+            try {
+                committerSlots.acquire();
+            } catch (InterruptedException e) {
+                return;
+            }
+            List<Pending> batch;
+            try {
+                batch = nextBatch();
+            } catch (InterruptedException e) {
+                committerSlots.release();
+                return;
+            }
+            try {
+                committers.execute(() -> {
+                    try {
+                        commit(batch);
+                    } finally {
+                        committerSlots.release();
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                // пул уже остановлен — собранную пачку не теряем
+                committerSlots.release();
+                batch.forEach(this::commitSingly);
+                return;
+            }
+        }
+    }
+
+    /** Первый перевод ждём без ограничения, остальные — до конца окна или заполнения пачки. */
+    private List<Pending> nextBatch() throws InterruptedException {
+        List<Pending> batch = new ArrayList<>(maxBatch);
+        batch.add(queue.take());
+        long deadline = System.nanoTime() + windowNanos;
+        while (batch.size() < maxBatch) {
+            queue.drainTo(batch, maxBatch - batch.size());
+            long left = deadline - System.nanoTime();
+            if (batch.size() >= maxBatch || left <= 0) break;
+            try {
+                Pending next = queue.poll(left, TimeUnit.NANOSECONDS);
+                if (next == null) break;
+                batch.add(next);
+            } catch (InterruptedException e) {
+                // остановка: уже взятое из очереди всё равно коммитим
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        return batch;
+    }
+
+    private void commit(List<Pending> batch) {
+        List<TransferCommand> commands = batch.stream().map(Pending::command).toList();
+        List<TransferOutcome> outcomes;
+        try {
+            outcomes = cardService.transferBatch(commands, BatchMode.BEST_EFFORT);
+        } catch (RuntimeException e) {
+            log.debug("Group commit of {} transfers rolled back, falling back to single transfers: {}", batch.size(), e.toString());
+            batch.forEach(this::commitSingly);
+            return;
+        }
+        for (TransferOutcome outcome : outcomes) {
+            CompletableFuture<Transaction> result = batch.get(outcome.index()).result();
+            if (outcome.succeeded()) {
+                result.complete(outcome.transaction());
+            } else {
+                result.completeExceptionally(outcome.failure());
+            }
+        }
+    }
+
+    private void commitSingly(Pending pending) {
+        TransferCommand cmd = pending.command();
+        try {
+            pending.result().complete(cardService.transfer(cmd.ownerId(), cmd.fromCardId(), cmd.toCardId(), cmd.amount()));
+        } catch (RuntimeException e) {
+            pending.result().completeExceptionally(e);
+        }
+    }
+
+    /** Дожидается начатых пачек; то, что осталось в очереди, проводится по одному. */
+    @PreDestroy
+    void shutdown() throws InterruptedException {
+        running = false;
+        collector.interrupt();
+        committers.shutdown();
+        committers.awaitTermination(10, TimeUnit.SECONDS);
+        List<Pending> rest = new ArrayList<>();
+        queue.drainTo(rest);
+        rest.forEach(this::commitSingly);
+    }
+}
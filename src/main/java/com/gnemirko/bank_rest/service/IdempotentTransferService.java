@@ -0,0 +1,14 @@
+package com.gnemirko.bank_rest.service;
+
+import com.gnemirko.bank_rest.dto.TransferResponse;
+
+import java.math.BigDecimal;
+
+/**
+ * Перевод с ключом идемпотентности: повтор с тем же ключом в пределах окна хранения
+ * возвращает исходный результат и не выполняет перевод повторно.
+ */
+public interface IdempotentTransferService {
+    TransferResponse transfer(Long userId, String idempotencyKey, Long fromCardId, Long toCardId, BigDecimal amount);
+    int purgeExpired();
+}
@@ -0,0 +1,144 @@
+package com.gnemirko.bank_rest.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.gnemirko.bank_rest.dto.TransferResponse;
+import com.gnemirko.bank_rest.entity.IdempotencyRecord;
+import com.gnemirko.bank_rest.entity.Transaction;
+import com.gnemirko.bank_rest.entity.TransactionStatus;
+import com.gnemirko.bank_rest.repository.IdempotencyRecordRepository;
+import com.gnemirko.bank_rest.retry.RetryOnConflict;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+
+/**
+ * Ключ и результат пишутся в таблицу {@code idempotency_keys} в одной транзакции с переводом:
+ * либо есть и перевод, и ключ, либо ничего. Два одновременных запроса с одним ключом упираются
+ * в первичный ключ, проигравший откатывается и отдаёт результат победителя.
+ * <p>
+ * Перед таблицей стоит ограниченный LRU: горячие повторы не доходят до БД, а повтор из таблицы
+ * читает одну строку по PK и не трогает блокировки карт. Неуспешные переводы откатываются
+ * целиком и ключ не занимают — повтор после 4xx выполнит перевод заново.
+ * <p>
+ * Перевод без ключа может уйти в групповой коммит ({@link GroupCommitTransferExecutor}); перевод с ключом
+ * всегда идёт своей транзакцией — ключ должен закоммититься вместе с ним.
+ */
+@Service
+public class IdempotentTransferServiceImpl implements IdempotentTransferService {
+
+    private record Outcome(String requestHash, TransferResponse response) {}
+
+    private final CardService cardService;
+    private final GroupCommitTransferExecutor groupCommit;
+    private final IdempotencyRecordRepository recordRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration retention;
+    private final Cache<String, Outcome> recent;
+
+    public IdempotentTransferServiceImpl(
+            CardService cardService,
+            GroupCommitTransferExecutor groupCommit,
+            IdempotencyRecordRepository recordRepository,
+            PlatformTransactionManager transactionManager,
+            @Value("${app.idempotency.retention:PT24H}") Duration retention,
+            @Value("${app.idempotency.cache-size:10000}") long cacheSize
+    ) {
+        this.cardService = cardService;
+        this.groupCommit = groupCommit;
+        this.recordRepository = recordRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.retention = retention;
+        this.recent = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .expireAfterWrite(retention)
+                .build();
+    }
+
+    @Override
+    @RetryOnConflict
+    public TransferResponse transfer(Long userId, String idempotencyKey, Long fromCardId, Long toCardId, BigDecimal amount) {
+        if (idempotencyKey == null || idempotencyKey.isBlank()) {
+            return TransferResponse.from(groupCommit.transfer(userId, fromCardId, toCardId, amount));
+        }
+        if (idempotencyKey.length() > 128) {
+            throw new IllegalArgumentException("Idempotency-Key must be at most 128 characters");
+        }
+
+        String scope = userId + ":" + idempotencyKey;
+        String hash = requestHash(fromCardId, toCardId, amount);
+
+        TransferResponse replay = replay(scope, hash, fromCardId, toCardId, amount);
+        if (replay != null) return replay;
+
+        try {
+            TransferResponse created = transactionTemplate.execute(status -> {
+                Transaction tx = cardService.transfer(userId, fromCardId, toCardId, amount);
+                Instant now = Instant.now();
+                recordRepository.saveAndFlush(IdempotencyRecord.builder()
+                        .id(scope)
+                        .userId(userId)
+                        .requestHash(hash)
+                        .transactionId(tx.getId())
+                        .createdAt(now)
+                        .expiresAt(now.plus(retention))
+                        .build());
+                return TransferResponse.from(tx);
+            });
+            recent.put(scope, new Outcome(hash, created));
+            return created;
+        } catch (DataIntegrityViolationException duplicate) {
+            // параллельный запрос с тем же ключом закоммитился раньше — наш перевод откатан
+            TransferResponse winner = replay(scope, hash, fromCardId, toCardId, amount);
+            if (winner != null) return winner;
+            throw duplicate;
+        }
+    }
+
+    private TransferResponse replay(String scope, String hash, Long fromCardId, Long toCardId, BigDecimal amount) {
+        Outcome cached = recent.getIfPresent(scope);
+        if (cached == null) {
+            cached = recordRepository.findLive(scope, Instant.now())
+                    .map(r -> new Outcome(r.getRequestHash(), new TransferResponse(
+                            r.getTransactionId(), fromCardId, toCardId, amount,
+                            TransactionStatus.COMPLETED.name(), r.getCreatedAt(), null)))
+                    .orElse(null);
+            if (cached == null) return null;
+            recent.put(scope, cached);
+        }
+        if (!cached.requestHash().equals(hash)) {
+            throw new IllegalArgumentException("Idempotency-Key was already used with a different request");
+        }
+        return cached.response();
+    }
+
+    @Override
+    @Scheduled(
+            initialDelayString = "${app.idempotency.sweep-interval-ms:600000}",
+            fixedDelayString = "${app.idempotency.sweep-interval-ms:600000}"
+    )
+    public int purgeExpired() {
+        return transactionTemplate.execute(status -> recordRepository.deleteExpired(Instant.now()));
+    }
+
+    private static String requestHash(Long fromCardId, Long toCardId, BigDecimal amount) {
+        String canonical = fromCardId + "|" + toCardId + "|" + amount.stripTrailingZeros().toPlainString();
+        try {
+            MessageDigest sha = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(sha.digest(canonical.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package com.gnemirko.bank_rest.service;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/** Итог перестроения журнала: сколько карт проверено и у каких баланс расходится с журналом. */
+public record JournalRebuildReport(long cardsChecked, int snapshotsRebuilt, List<Mismatch> mismatches) {
+
+    public record Mismatch(Long cardId, BigDecimal cardBalance, BigDecimal journalBalance) {}
+}
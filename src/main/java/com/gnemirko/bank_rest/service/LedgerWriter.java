@@ -0,0 +1,25 @@
+package com.gnemirko.bank_rest.service;
+
+import com.gnemirko.bank_rest.entity.Money;
+import com.gnemirko.bank_rest.entity.Transaction;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Append-only журнал переводов. Пишет только внутри уже открытой транзакции перевода,
+ * чтобы запись в журнале и изменение балансов фиксировались атомарно.
+ * Каждый проведённый перевод добавляет и дельты в {@link BalanceJournal}.
+ */
+public interface LedgerWriter {
+    Transaction append(Long fromCardId, Long toCardId, Money amount);
+    List<Transaction> appendAll(List<Transaction> entries);
+
+    /** Строка принятого, но ещё не проведённого перевода. */
+    Transaction appendPending(Long fromCardId, Long toCardId, Money amount);
+    /** Строка журнала под блокировкой до конца транзакции. */
+    Optional<Transaction> lockEntry(Long id);
+    Transaction complete(Transaction pending);
+    /** PENDING → FAILED; уже завершённую строку не трогает. */
+    void fail(Long id, String reason);
+}
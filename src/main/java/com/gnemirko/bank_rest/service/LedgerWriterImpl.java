@@ -0,0 +1,83 @@
+package com.gnemirko.bank_rest.service;
+
+import com.gnemirko.bank_rest.entity.Money;
+import com.gnemirko.bank_rest.entity.Transaction;
+import com.gnemirko.bank_rest.entity.TransactionStatus;
+import com.gnemirko.bank_rest.repository.TransactionRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+@Service
+@RequiredArgsConstructor
+public class LedgerWriterImpl implements LedgerWriter {
+
+    private final TransactionRepository transactionRepository;
+    private final BalanceJournal balanceJournal;
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public Transaction append(Long fromCardId, Long toCardId, Money amount) {
+        Transaction tx = Transaction.builder()
+                .fromCardId(fromCardId)
+                .toCardId(toCardId)
+                .amount(amount)
+                .status(TransactionStatus.COMPLETED)
+                .createdAt(Instant.now())
+                .build();
+        // persist без немедленного flush: INSERT уйдёт вместе с UPDATE карт одним JDBC-батчем при коммите
+        Transaction saved = transactionRepository.save(tx);
+        balanceJournal.recordTransfers(List.of(saved));
+        return saved;
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public List<Transaction> appendAll(List<Transaction> entries) {
+        Instant now = Instant.now();
+        for (Transaction tx : entries) {
+            if (tx.getStatus() == null) tx.setStatus(TransactionStatus.COMPLETED);
+            if (tx.getCreatedAt() == null) tx.setCreatedAt(now);
+        }
+        List<Transaction> saved = transactionRepository.saveAll(entries);
+        balanceJournal.recordTransfers(saved);
+        return saved;
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public Transaction appendPending(Long fromCardId, Long toCardId, Money amount) {
+        return transactionRepository.save(Transaction.builder()
+                .fromCardId(fromCardId)
+                .toCardId(toCardId)
+                .amount(amount)
+                .status(TransactionStatus.PENDING)
+                .createdAt(Instant.now())
+                .build());
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public Optional<Transaction> lockEntry(Long id) {
+        return transactionRepository.findByIdForUpdate(id);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public Transaction complete(Transaction pending) {
+        pending.setStatus(TransactionStatus.COMPLETED);
+        balanceJournal.recordTransfers(List.of(pending));
+        return pending;
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void fail(Long id, String reason) {
+        transactionRepository.markFailed(id, reason);
+    }
+}
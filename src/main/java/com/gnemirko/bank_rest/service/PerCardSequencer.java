@@ -0,0 +1,50 @@
+package com.gnemirko.bank_rest.service;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * Очередь задач с порядком по картам: задача стартует только после всех ранее поставленных
+ * задач по любой из её карт. Задачи по непересекающимся картам выполняются параллельно.
+ * <p>
+ * Для каждой карты хранится хвост цепочки — future последней поставленной задачи; новая задача
+ * подвешивается на хвосты своих карт и сама становится хвостом. Ошибка задачи цепочку не рвёт.
+ */
+final class PerCardSequencer {
+
+    private final Executor executor;
+    private final Map<Long, CompletableFuture<Void>> tails = new HashMap<>();
+
+    PerCardSequencer(Executor executor) {
+        this.executor = executor;
+    }
+
+    synchronized CompletableFuture<Void> submit(Collection<Long> cardIds, Runnable task) {
+        Set<Long> keys = new HashSet<>(cardIds);
+        CompletableFuture<?>[] previous = keys.stream()
+                .map(tails::get)
+                .filter(Objects::nonNull)
+                .toArray(CompletableFuture[]::new);
+
+        CompletableFuture<Void> next = CompletableFuture.allOf(previous)
+                .exceptionally(e -> null)
+                .thenRunAsync(task, executor);
+        for (Long key : keys) {
+            tails.put(key, next);
+        }
+        // вызывающий видит завершение только после снятия хвостов
+        return next.whenComplete((r, e) -> release(keys, next));
+    }
+
+    /** Снимает хвост, если после задачи по карте ничего не поставили, — карта не копится в памяти. */
+    private synchronized void release(Set<Long> keys, CompletableFuture<Void> done) {
+        for (Long key : keys) {
+            tails.remove(key, done);
+        }
+    }
+
+    synchronized int pendingCards() {
+        return tails.size();
+    }
+}
@@ -21,6 +21,7 @@ public class RequestServiceImpl implements RequestService {
     private final RequestRepository requestRepository;
     private final UserRepository userRepository;
     private final CardRepository cardRepository;
+    private final CardService cardService;
 
     @Override
     @Transactional
@@ -60,18 +61,18 @@ public class RequestServiceImpl implements RequestService {
         return requestRepository.save(request);
     }
 
-    /** Apply supported operations. For now only card blocking is supported. */
+    /**
+     * Apply supported operations. For now only card blocking is supported.
+     * Блокировка идёт через {@link CardService#updateStatus}: строка карты под блокировкой,
+     * счётчики по статусам и кэш представлений обновляются там же.
+     */
     private void applyOperationIfNeeded(Request r) {
         if (r.getObject() == null || r.getOperation() == null) return;
 
         String op = r.getOperation().trim().toUpperCase();
         if (op.contains("BLOCK")) {
-            Card card = cardRepository.findById(r.getObject().getId())
-                    .orElseThrow(() -> new ResourceNotFoundException("Card " + r.getObject().getId() + " not found"));
-            if (card.getStatus() != CardStatus.BLOCKED) {
-                card.setStatus(CardStatus.BLOCKED);
-                cardRepository.save(card);
-            }
+            // уже заблокированная карта: счётчики не меняются, повторная запись безвредна
+            cardService.updateStatus(r.getObject().getId(), CardStatus.BLOCKED);
         }
     }
-}
\ No newline at end of file
+}
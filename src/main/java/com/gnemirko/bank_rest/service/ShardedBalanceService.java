@@ -0,0 +1,42 @@
+package com.gnemirko.bank_rest.service;
+
+import com.gnemirko.bank_rest.entity.Card;
+import com.gnemirko.bank_rest.entity.Money;
+
+/**
+ * Баланс «горячей» карты, разнесённый по N строкам {@code card_balance_shard}.
+ * Зачисление трогает одну случайную строку, поэтому параллельные зачисления на одну карту
+ * почти не ждут друг друга; списание блокирует шарды карты и собирает сумму, обходя их по кругу.
+ * Все методы изменения вызываются внутри транзакции перевода.
+ */
+public interface ShardedBalanceService {
+
+    /** Подсказка для выбора блокировки строки карты; источник истины — {@link Card#isSharded()}. */
+    boolean isSharded(Long cardId);
+
+    /** Запоминает карту, которую шардировали на другом узле до очередного обновления набора. */
+    void markSharded(Long cardId);
+
+    void credit(Card card, Money amount);
+
+    /**
+     * Заранее блокирует случайный шард для зачисления и возвращает его номер — для перевода,
+     * где карта-получатель идёт в порядке блокировок раньше источника.
+     */
+    int lockCreditShard(Card card);
+
+    /** Зачисление в конкретный шард, обычно взятый {@link #lockCreditShard}. */
+    void credit(Card card, int shard, Money amount);
+
+    /** @throws IllegalArgumentException "Insufficient funds", если суммы шардов не хватает */
+    void debit(Card card, Money amount);
+
+    /** Заменяет баланс: всё в шард 0, остальные обнуляются. Возвращает прежнюю сумму шардов. */
+    Money reset(Card card, Money balance);
+
+    /**
+     * Переводит карту на шардированный баланс или увеличивает число шардов.
+     * Обратного перехода нет: одна карта не может перестать быть горячей, пока по ней идут переводы.
+     */
+    Card enable(Card card, int shards);
+}
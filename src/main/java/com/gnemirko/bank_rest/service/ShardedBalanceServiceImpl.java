@@ -0,0 +1,164 @@
+package com.gnemirko.bank_rest.service;
+
+import com.gnemirko.bank_rest.entity.Card;
+import com.gnemirko.bank_rest.entity.CardBalanceShard;
+import com.gnemirko.bank_rest.entity.Money;
+import com.gnemirko.bank_rest.repository.CardBalanceShardRepository;
+import com.gnemirko.bank_rest.repository.CardRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Порядок блокировок: строки карт (по возрастанию id) → шарды карт, тоже по возрастанию id карты,
+ * внутри карты — по {@code shard_no}. Зачисление держит одну строку шарда, списание берёт все шарды
+ * карты одним {@code SELECT ... ORDER BY shard_no FOR UPDATE}, и сумма проверяется под блокировкой.
+ * Строки двух шардированных карт перевод берёт лишь {@code FOR SHARE}, поэтому порядок шардов
+ * соблюдает сам перевод: если получатель идёт раньше источника, его шард для зачисления
+ * блокируется заранее ({@link #lockCreditShard}) — так встречные переводы не дают deadlock.
+ * <p>
+ * Набор шардированных карт кешируется в памяти и периодически перечитывается: он нужен только
+ * чтобы заранее взять строку карты {@code FOR SHARE}, а не {@code FOR UPDATE}. Устаревший набор
+ * не ломает корректность — карта просто блокируется сильнее, чем нужно.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ShardedBalanceServiceImpl implements ShardedBalanceService {
+
+    private final CardRepository cardRepository;
+    private final CardBalanceShardRepository shardRepository;
+
+    private final Set<Long> shardedIds = ConcurrentHashMap.newKeySet();
+
+    @Value("${app.sharding.max-shards:64}")
+    private int maxShards = 64;
+
+    @Override
+    public boolean isSharded(Long cardId) {
+        return shardedIds.contains(cardId);
+    }
+
+    @Override
+    public void markSharded(Long cardId) {
+        shardedIds.add(cardId);
+    }
+
+    @Scheduled(initialDelay = 0, fixedDelayString = "${app.sharding.refresh-interval-ms:30000}")
+    public void refresh() {
+        try {
+            Set<Long> current = new HashSet<>(cardRepository.findShardedIds());
+            // удалённые карты из набора уходят; добавленные между чтением и обновлением вернутся следующим refresh
+            shardedIds.retainAll(current);
+            shardedIds.addAll(current);
+        } catch (RuntimeException e) {
+            log.warn("Failed to refresh sharded card ids: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void credit(Card card, Money amount) {
+        credit(card, ThreadLocalRandom.current().nextInt(card.getBalanceShards()), amount);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public int lockCreditShard(Card card) {
+        int shard = ThreadLocalRandom.current().nextInt(card.getBalanceShards());
+        if (shardRepository.lockOne(card.getId(), shard).isEmpty()) {
+            throw new IllegalStateException("Balance shard " + shard + " is missing for card " + card.getId());
+        }
+        return shard;
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void credit(Card card, int shard, Money amount) {
+        if (shardRepository.credit(card.getId(), shard, amount.minor()) == 0) {
+            throw new IllegalStateException("Balance shard " + shard + " is missing for card " + card.getId());
+        }
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void debit(Card card, Money amount) {
+        List<Object[]> rows = shardRepository.lockAll(card.getId());
+        int n = rows.size();
+        if (n == 0) {
+            throw new IllegalStateException("Balance shards are missing for card " + card.getId());
+        }
+
+        // обход со случайного шарда: списания не вычерпывают всегда один и тот же шард
+        int start = ThreadLocalRandom.current().nextInt(n);
+        long remaining = amount.minor();
+        int[] touched = new int[n];
+        long[] takes = new long[n];
+        int count = 0;
+        for (int i = 0; i < n && remaining > 0; i++) {
+            Object[] row = rows.get((start + i) % n);
+            long balance = row[1] == null ? 0 : ((Number) row[1]).longValue();
+            if (balance <= 0) continue;
+            long take = Math.min(balance, remaining);
+            touched[count] = ((Number) row[0]).intValue();
+            takes[count++] = take;
+            remaining -= take;
+        }
+        if (remaining > 0) {
+            throw new IllegalArgumentException("Insufficient funds");
+        }
+        for (int i = 0; i < count; i++) {
+            shardRepository.debit(card.getId(), touched[i], takes[i]);
+        }
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public Money reset(Card card, Money balance) {
+        Money previous = Money.ZERO;
+        for (Object[] row : shardRepository.lockAll(card.getId())) {
+            if (row[1] != null) previous = previous.plus(Money.ofMinor(((Number) row[1]).longValue()));
+        }
+        shardRepository.reset(card.getId(), balance.minor());
+        card.setShardedBalance(balance.toBigDecimal());
+        return previous;
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public Card enable(Card card, int shards) {
+        if (shards < 1 || shards > maxShards) {
+            throw new IllegalArgumentException("Shard count must be between 1 and " + maxShards);
+        }
+        int current = card.getBalanceShards();
+        if (shards <= current) {
+            throw new IllegalArgumentException("Card already has " + current + " balance shards; the count can only grow");
+        }
+
+        Money total = card.getBalance() == null ? Money.ZERO : card.getBalance();
+        List<CardBalanceShard> created = new ArrayList<>(shards - current);
+        for (int no = current; no < shards; no++) {
+            // при первом включении весь текущий баланс уходит в шард 0
+            Money initial = (current == 0 && no == 0) ? total : Money.ZERO;
+            created.add(new CardBalanceShard(card.getId(), no, initial));
+        }
+        shardRepository.saveAll(created);
+
+        card.setBalanceShards(shards);
+        card.setBalance(Money.ZERO);
+        card.setShardedBalance(total.toBigDecimal());
+        shardedIds.add(card.getId());
+        return card;
+    }
+}
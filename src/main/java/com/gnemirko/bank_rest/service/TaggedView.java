@@ -0,0 +1,8 @@
+package com.gnemirko.bank_rest.service;
+
+/**
+ * Представление вместе с отпечатком для ETag, прочитанными из одного снимка БД:
+ * ETag ответа всегда описывает именно это тело.
+ */
+public record TaggedView<T>(T view, String tag) {
+}
@@ -0,0 +1,21 @@
+package com.gnemirko.bank_rest.service;
+
+import com.gnemirko.bank_rest.util.SeekCursor;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * История переводов с keyset-пагинацией по (created_at, id), от новых к старым.
+ * Строки пишутся в JSON прямо из ResultSet: {@code {"items":[...],"nextCursor":"..."}};
+ * {@code nextCursor} отсутствует на последней странице.
+ */
+public interface TransactionHistoryService {
+
+    /** 404 — карты нет, 403 — карта чужая. Вызывается до начала стриминга, чтобы ошибка ушла как ProblemDetail. */
+    void checkCardAccess(Long userId, Long cardId);
+
+    void writeCardHistory(Long cardId, SeekCursor after, int limit, OutputStream out) throws IOException;
+
+    void writeUserHistory(Long userId, SeekCursor after, int limit, OutputStream out) throws IOException;
+}
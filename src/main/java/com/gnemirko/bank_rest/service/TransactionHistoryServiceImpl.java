@@ -0,0 +1,146 @@
+package com.gnemirko.bank_rest.service;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gnemirko.bank_rest.exception.ResourceNotFoundException;
+import com.gnemirko.bank_rest.repository.CardRepository;
+import com.gnemirko.bank_rest.util.SeekCursor;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Каждая страница — seek по составным индексам {@code (from_card_id, created_at, id)} и
+ * {@code (to_card_id, created_at, id)}: Postgres начинает обратный скан индекса сразу с позиции
+ * курсора, поэтому стоимость страницы не зависит от её номера. Строк читается {@code limit + 1} —
+ * лишняя строка только говорит, что есть следующая страница.
+ */
+@Service
+@RequiredArgsConstructor
+public class TransactionHistoryServiceImpl implements TransactionHistoryService {
+
+    private static final String COLUMNS = "t.id, t.from_card_id, t.to_card_id, t.amount, t.status, t.created_at, t.failure_reason";
+    private static final String SEEK = " and (t.created_at, t.id) < (?, ?)";
+
+    private final CardRepository cardRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+
+    @Override
+    public void checkCardAccess(Long userId, Long cardId) {
+        Long owner = cardRepository.findOwnerIdById(cardId)
+                .orElseThrow(() -> new ResourceNotFoundException("Card: " + cardId));
+        if (!owner.equals(userId)) {
+            throw new AccessDeniedException("Forbidden");
+        }
+    }
+
+    /** Карта бывает и источником, и получателем: два seek-а по своим индексам, слияние по (created_at, id). */
+    @Override
+    public void writeCardHistory(Long cardId, SeekCursor after, int limit, OutputStream out) throws IOException {
+        String seek = after == null ? "" : SEEK;
+        String sql = "(select " + COLUMNS + " from transactions t where t.from_card_id = ?" + seek
+                + " order by t.created_at desc, t.id desc limit ?)"
+                + " union all "
+                + "(select " + COLUMNS + " from transactions t where t.to_card_id = ?" + seek
+                + " order by t.created_at desc, t.id desc limit ?)"
+                + " order by created_at desc, id desc limit ?";
+
+        List<Object> args = new ArrayList<>();
+        for (int branch = 0; branch < 2; branch++) {
+            args.add(cardId);
+            addSeek(args, after);
+            args.add(limit + 1);
+        }
+        args.add(limit + 1);
+        stream(sql, args, limit, out);
+    }
+
+    /**
+     * Переводы идут только между картами одного владельца, поэтому история пользователя — это
+     * исходящие переводы его карт. LATERAL делает по seek-у на карту, так что страница стоит
+     * O(карт × limit) строк независимо от глубины.
+     */
+    @Override
+    public void writeUserHistory(Long userId, SeekCursor after, int limit, OutputStream out) throws IOException {
+        String sql = "select t.* from card c cross join lateral ("
+                + "select " + COLUMNS + " from transactions t where t.from_card_id = c.id"
+                + (after == null ? "" : SEEK)
+                + " order by t.created_at desc, t.id desc limit ?) t"
+                + " where c.user_id = ?"
+                + " order by t.created_at desc, t.id desc limit ?";
+
+        List<Object> args = new ArrayList<>();
+        addSeek(args, after);
+        args.add(limit + 1);
+        args.add(userId);
+        args.add(limit + 1);
+        stream(sql, args, limit, out);
+    }
+
+    private static void addSeek(List<Object> args, SeekCursor after) {
+        if (after == null) return;
+        args.add(Timestamp.from(after.createdAt()));
+        args.add(after.id());
+    }
+
+    private void stream(String sql, List<Object> args, int limit, OutputStream out) throws IOException {
+        try (JsonGenerator json = objectMapper.getFactory().createGenerator(out, JsonEncoding.UTF8)) {
+            json.writeStartObject();
+            json.writeArrayFieldStart("items");
+
+            int[] written = {0};
+            SeekCursor[] last = {null};
+            boolean[] hasMore = {false};
+            jdbcTemplate.query(sql, (RowCallbackHandler) rs -> {
+                if (written[0] == limit) {
+                    hasMore[0] = true;
+                    return;
+                }
+                last[0] = writeRow(json, rs);
+                written[0]++;
+            }, args.toArray());
+
+            json.writeEndArray();
+            if (hasMore[0]) {
+                json.writeStringField("nextCursor", last[0].encode());
+            }
+            json.writeEndObject();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static SeekCursor writeRow(JsonGenerator json, ResultSet rs) throws SQLException {
+        long id = rs.getLong("id");
+        Instant createdAt = rs.getTimestamp("created_at").toInstant();
+        try {
+            json.writeStartObject();
+            json.writeNumberField("transactionId", id);
+            json.writeNumberField("fromCardId", rs.getLong("from_card_id"));
+            json.writeNumberField("toCardId", rs.getLong("to_card_id"));
+            json.writeNumberField("amount", rs.getBigDecimal("amount"));
+            json.writeStringField("status", rs.getString("status"));
+            json.writeStringField("createdAt", createdAt.toString());
+            String failure = rs.getString("failure_reason");
+            if (failure != null) json.writeStringField("failureReason", failure);
+            json.writeEndObject();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return SeekCursor.of(createdAt, id);
+    }
+}
@@ -0,0 +1,7 @@
+package com.gnemirko.bank_rest.service;
+
+import java.math.BigDecimal;
+
+/** Одна позиция пакетного перевода; {@code ownerId} — пользователь, от имени которого она выполняется. */
+public record TransferCommand(Long ownerId, Long fromCardId, Long toCardId, BigDecimal amount) {
+}
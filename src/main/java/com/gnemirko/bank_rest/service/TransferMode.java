@@ -0,0 +1,13 @@
+package com.gnemirko.bank_rest.service;
+
+/**
+ * Стратегия исполнения перевода, выбирается на уровне деплоя ({@code app.transfer.mode}).
+ */
+public enum TransferMode {
+    /** SELECT ... FOR UPDATE обеих карт в порядке id, проверки в Java, два UPDATE. */
+    PESSIMISTIC,
+    /** Два условных UPDATE (списание с проверками в WHERE, зачисление); строки заблокированы только на время statement-ов. */
+    CONDITIONAL,
+    /** Чтение без блокировок, проверка {@code @Version} при коммите, повтор при конфликте (см. {@link com.gnemirko.bank_rest.retry.RetryOnConflict}). */
+    OPTIMISTIC
+}
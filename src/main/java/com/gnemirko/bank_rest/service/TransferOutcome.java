@@ -0,0 +1,22 @@
+package com.gnemirko.bank_rest.service;
+
+import com.gnemirko.bank_rest.entity.Transaction;
+
+/**
+ * Результат позиции пакетного перевода: запись журнала при успехе или текст ошибки.
+ * {@code failure} — исходное исключение, чтобы вызывающий мог отдать тот же статус, что и одиночный перевод.
+ */
+public record TransferOutcome(int index, Transaction transaction, String error, RuntimeException failure) {
+
+    public static TransferOutcome ok(int index, Transaction transaction) {
+        return new TransferOutcome(index, transaction, null, null);
+    }
+
+    public static TransferOutcome failed(int index, RuntimeException failure) {
+        return new TransferOutcome(index, null, failure.getMessage(), failure);
+    }
+
+    public boolean succeeded() {
+        return transaction != null;
+    }
+}
@@ -7,12 +7,16 @@ import com.gnemirko.bank_rest.entity.User;
 import com.gnemirko.bank_rest.exception.ResourceNotFoundException;
 import com.gnemirko.bank_rest.exception.UserNameAlreadyExistsException;
 import com.gnemirko.bank_rest.repository.UserRepository;
-import jakarta.transaction.Transactional;
+import com.gnemirko.bank_rest.security.PrincipalCache;
+import com.gnemirko.bank_rest.security.TokenDenylist;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 
 @Service
@@ -22,6 +26,10 @@ public class UserServiceImpl implements UserService {
 
     private final PasswordEncoder encoder;
 
+    private final PrincipalCache principals;
+
+    private final TokenDenylist tokenDenylist;
+
     @Transactional
     @Override
     public User createUser(CreateUserRequest request) {
@@ -39,14 +47,33 @@ public class UserServiceImpl implements UserService {
         return userRepository.save(user);
     }
 
+    @Transactional
     public User makeUserAdmin(Long id) {
         User user = userRepository.findById(id).orElseThrow(() -> new ResourceNotFoundException("User:" + id + " doesn't exist"));
         user.setRole(Role.ROLE_ADMIN);
+        // роль в БД действует с ближайшего запроса; токены со старой ролью в claims отзываются
+        // только после коммита — откат смены роли не должен разлогинивать пользователя
+        principals.evict(user.getName());
+        Long uid = user.getId();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    tokenDenylist.revokeUser(uid);
+                }
+            });
+        } else {
+            tokenDenylist.revokeUser(uid);
+        }
         return userRepository.save(user);
     }
+
+    @Transactional(readOnly = true)
     public Page<UserResponse> list(Pageable pageable) {
         return userRepository.findAll(pageable).map(UserResponse::from);
     }
+
+    @Transactional(readOnly = true)
     public User getUser(Long id) {
         return userRepository.findById(id).orElseThrow(() -> new ResourceNotFoundException("User:" + id + " doesn't exist"));
     }
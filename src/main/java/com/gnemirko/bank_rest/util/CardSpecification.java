@@ -2,19 +2,36 @@ package com.gnemirko.bank_rest.util;
 
 import com.gnemirko.bank_rest.entity.Card;
 import com.gnemirko.bank_rest.entity.CardStatus;
+import com.gnemirko.bank_rest.entity.User;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Subquery;
 import org.springframework.data.jpa.domain.Specification;
 
 public final class CardSpecification {
     private CardSpecification() {}
 
+    /**
+     * Сначала id подходящих владельцев, потом карты по {@code user_id}:
+     * {@code card.user_id in (select id from users where lower(name) like '%ivan%')}.
+     * Подзапрос обслуживает trigram-индекс {@code idx_users_name_trgm} (от 3 символов),
+     * карты — индекс по {@code user_id}; join со всей таблицей users не строится.
+     */
     public static Specification<Card> hasOwnerName(String name) {
         return (root, query, cb) -> {
             if (name == null || name.isBlank()) return null;
-            var owner = root.join("owner"); // INNER JOIN users
-            return cb.like(cb.lower(owner.get("name")), "%" + name.toLowerCase() + "%");
+            Subquery<Long> owners = query.subquery(Long.class);
+            Root<User> user = owners.from(User.class);
+            owners.select(user.<Long>get("id"))
+                    .where(cb.like(cb.lower(user.get("name")), "%" + escapeLike(name.toLowerCase()) + "%", '\\'));
+            return root.get("owner").get("id").in(owners);
         };
     }
 
+    /** % и _ из ввода ищутся буквально. */
+    static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
     public static Specification<Card> hasStatus(CardStatus status) {
         return (root, query, cb) -> {
             if (status == null) return null;
@@ -22,11 +39,25 @@ public final class CardSpecification {
         };
     }
 
+    /**
+     * Ровно 4 символа — равенство по индексированной колонке {@code last4};
+     * более короткий хвост по-прежнему ищется {@code number LIKE %12} (без индекса).
+     */
     public static Specification<Card> hasLast4(String last4) {
         return (root, query, cb) -> {
             if (last4 == null || last4.isBlank()) return null;
-            // number LIKE %1234
+            if (last4.length() == 4) {
+                return cb.equal(root.get("last4"), last4);
+            }
             return cb.like(root.get("number"), "%" + last4);
         };
     }
+
+    /** Keyset-условие: карты с id строго больше {@code afterId}. */
+    public static Specification<Card> idAfter(Long afterId) {
+        return (root, query, cb) -> {
+            if (afterId == null) return null;
+            return cb.greaterThan(root.get("id"), afterId);
+        };
+    }
 }
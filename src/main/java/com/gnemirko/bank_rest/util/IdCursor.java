@@ -0,0 +1,31 @@
+package com.gnemirko.bank_rest.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Курсор keyset-пагинации по первичному ключу: следующая страница — строки с id строго больше.
+ * Клиенту отдаётся непрозрачной base64url-строкой, чтобы формат можно было поменять.
+ */
+public final class IdCursor {
+    private IdCursor() {}
+
+    private static final String PREFIX = "id:";
+
+    public static String encode(long id) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((PREFIX + id).getBytes(StandardCharsets.US_ASCII));
+    }
+
+    /** null/пустая строка — первая страница. */
+    public static Long decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) return null;
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.US_ASCII);
+            if (!raw.startsWith(PREFIX)) throw new IllegalArgumentException();
+            return Long.parseLong(raw.substring(PREFIX.length()));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.gnemirko.bank_rest.util;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Base64;
+
+/**
+ * Позиция keyset-пагинации по (created_at, id): следующая страница — строки строго «старше» курсора.
+ * Клиенту отдаётся непрозрачной base64url-строкой; время хранится в микросекундах, как в Postgres.
+ */
+public record SeekCursor(Instant createdAt, long id) {
+
+    public static SeekCursor of(Instant createdAt, long id) {
+        return new SeekCursor(createdAt.truncatedTo(ChronoUnit.MICROS), id);
+    }
+
+    public String encode() {
+        long micros = ChronoUnit.MICROS.between(Instant.EPOCH, createdAt);
+        String raw = micros + ":" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    /** null/пустая строка — первая страница. */
+    public static SeekCursor decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) return null;
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.US_ASCII);
+            int sep = raw.indexOf(':');
+            long micros = Long.parseLong(raw.substring(0, sep));
+            long id = Long.parseLong(raw.substring(sep + 1));
+            return new SeekCursor(Instant.EPOCH.plus(micros, ChronoUnit.MICROS), id);
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.gnemirko.bank_rest.benchmark;
+
+import com.gnemirko.bank_rest.BankRestApplication;
+import com.gnemirko.bank_rest.entity.Card;
+import com.gnemirko.bank_rest.entity.CardStatus;
+import com.gnemirko.bank_rest.entity.Money;
+import com.gnemirko.bank_rest.entity.Role;
+import com.gnemirko.bank_rest.entity.User;
+import com.gnemirko.bank_rest.repository.CardRepository;
+import com.gnemirko.bank_rest.repository.UserRepository;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Общая обвязка для бенчмарков, которым нужна настоящая БД: поднимает контекст без web-слоя
+ * против настроенного datasource (схема должна быть уже применена Liquibase) и сидит
+ * одинаковый набор данных на каждый trial.
+ */
+final class BenchmarkFixtures {
+    private BenchmarkFixtures() {}
+
+    static final BigDecimal INITIAL_BALANCE = new BigDecimal("1000000.00");
+
+    static ConfigurableApplicationContext start(String... properties) {
+        return new SpringApplicationBuilder(BankRestApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties("spring.liquibase.enabled=false",
+                        "spring.docker.compose.enabled=false",
+                        "logging.level.com.gnemirko.bank_rest=WARN")
+                .properties(properties)
+                .run();
+    }
+
+    static User seedOwner(ConfigurableApplicationContext ctx) {
+        User owner = User.builder()
+                .name("bench-" + System.nanoTime())
+                .passwordHash("-")
+                .role(Role.ROLE_USER)
+                .build();
+        return ctx.getBean(UserRepository.class).save(owner);
+    }
+
+    static long[] seedCards(ConfigurableApplicationContext ctx, User owner, int count) {
+        CardRepository cards = ctx.getBean(CardRepository.class);
+        long[] ids = new long[count];
+        for (int i = 0; i < count; i++) {
+            Card card = Card.builder()
+                    .owner(owner)
+                    .number(String.format("9%015d", ThreadLocalRandom.current().nextLong(1_000_000_000_000_000L)))
+                    .expiryDate(Date.valueOf(LocalDate.now().plusYears(3)))
+                    .status(CardStatus.ACTIVE)
+                    .balance(Money.of(INITIAL_BALANCE))
+                    .build();
+            ids[i] = cards.save(card).getId();
+        }
+        return ids;
+    }
+
+    /** Пара разных случайных индексов карт. */
+    static int[] randomPair(int count) {
+        ThreadLocalRandom rnd = ThreadLocalRandom.current();
+        int a = rnd.nextInt(count);
+        int b = rnd.nextInt(count - 1);
+        if (b >= a) b++;
+        return new int[]{a, b};
+    }
+}
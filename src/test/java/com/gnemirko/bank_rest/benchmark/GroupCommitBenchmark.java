@@ -0,0 +1,78 @@
+package com.gnemirko.bank_rest.benchmark;
+
+import com.gnemirko.bank_rest.entity.User;
+import com.gnemirko.bank_rest.service.GroupCommitTransferExecutor;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Одиночные переводы через {@link GroupCommitTransferExecutor}: выключенный групповой коммит
+ * (транзакция на перевод) против пачек с разным окном. Throughput показывает выигрыш на коммитах,
+ * SampleTime — цену в задержке (перевод ждёт закрытия окна). Нужна поднятая БД со схемой.
+ * <pre>
+ * ./mvnw test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=com.gnemirko.bank_rest.benchmark.GroupCommitBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+@Threads(64)
+public class GroupCommitBenchmark {
+
+    private static final BigDecimal AMOUNT = new BigDecimal("1.00");
+
+    /** "off" — без группового коммита, иначе окно пачки. */
+    @Param({"off", "1ms", "2ms", "5ms"})
+    public String window;
+
+    @Param({"64"})
+    public int maxBatch;
+
+    @Param({"1024"})
+    public int cards;
+
+    private ConfigurableApplicationContext ctx;
+    private GroupCommitTransferExecutor executor;
+    private Long ownerId;
+    private long[] cardIds;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        boolean enabled = !"off".equals(window);
+        ctx = BenchmarkFixtures.start(
+                "app.transfer.group-commit.enabled=" + enabled,
+                "app.transfer.group-commit.window=" + (enabled ? window : "2ms"),
+                "app.transfer.group-commit.max-batch=" + maxBatch);
+        executor = ctx.getBean(GroupCommitTransferExecutor.class);
+        User owner = BenchmarkFixtures.seedOwner(ctx);
+        ownerId = owner.getId();
+        cardIds = BenchmarkFixtures.seedCards(ctx, owner, cards);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        ctx.close();
+    }
+
+    @Benchmark
+    public Object transfer() {
+        int[] pair = BenchmarkFixtures.randomPair(cardIds.length);
+        return executor.transfer(ownerId, cardIds[pair[0]], cardIds[pair[1]], AMOUNT);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(GroupCommitBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
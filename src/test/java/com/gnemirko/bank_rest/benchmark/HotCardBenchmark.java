@@ -0,0 +1,84 @@
+package com.gnemirko.bank_rest.benchmark;
+
+import com.gnemirko.bank_rest.entity.User;
+import com.gnemirko.bank_rest.service.CardService;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Зачисления на одну «горячую» карту: каждый поток переводит со своей карты, так что конкуренция
+ * есть только за строку получателя. {@code shards = 0} — обычная карта (FOR UPDATE на строке),
+ * иначе баланс получателя разнесён по {@code shards} под-балансам.
+ * <pre>
+ * ./mvnw test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=com.gnemirko.bank_rest.benchmark.HotCardBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+@Threads(32)
+public class HotCardBenchmark {
+
+    private static final int SOURCES = 32;
+    private static final BigDecimal AMOUNT = new BigDecimal("1.00");
+
+    @Param({"0", "4", "16"})
+    public int shards;
+
+    private ConfigurableApplicationContext ctx;
+    private CardService cardService;
+    private Long ownerId;
+    private long hotCardId;
+    private long[] sourceIds;
+    private final AtomicInteger nextSource = new AtomicInteger();
+
+    @State(Scope.Thread)
+    public static class Source {
+        int index = -1;
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        ctx = BenchmarkFixtures.start();
+        cardService = ctx.getBean(CardService.class);
+        User owner = BenchmarkFixtures.seedOwner(ctx);
+        ownerId = owner.getId();
+        long[] ids = BenchmarkFixtures.seedCards(ctx, owner, SOURCES + 1);
+        hotCardId = ids[0];
+        sourceIds = Arrays.copyOfRange(ids, 1, ids.length);
+        if (shards > 0) {
+            cardService.enableBalanceSharding(hotCardId, shards);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        ctx.close();
+    }
+
+    @Benchmark
+    public Object creditHotCard(Source source) {
+        if (source.index < 0) {
+            source.index = nextSource.getAndIncrement() % SOURCES;
+        }
+        return cardService.transfer(ownerId, sourceIds[source.index], hotCardId, AMOUNT);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(HotCardBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,95 @@
+package com.gnemirko.bank_rest.benchmark;
+
+import com.gnemirko.bank_rest.security.AppUserDetails;
+import com.gnemirko.bank_rest.security.JwtAuthFilter;
+import com.gnemirko.bank_rest.security.JwtService;
+import com.gnemirko.bank_rest.security.TokenDenylist;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import jakarta.servlet.FilterChain;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Стоимость аутентификации одного запроса в {@link JwtAuthFilter} (stateless-режим, без БД),
+ * клиент повторяет один и тот же токен:
+ * <ul>
+ *   <li>{@code rebuildKeyAndParser} — как было: ключ из строки секрета и новый парсер на каждый вызов;</li>
+ *   <li>{@code authenticate} с {@code verifiedCacheSize=0} — долгоживущие ключ и парсер, подпись проверяется каждый раз;</li>
+ *   <li>{@code authenticate} с кэшем — повторный токен берётся из кэша проверенных claims.</li>
+ * </ul>
+ * <pre>
+ * ./mvnw test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=com.gnemirko.bank_rest.benchmark.JwtAuthBenchmark
+ * </pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtAuthBenchmark {
+
+    private static final String SECRET = "benchmark-secret-benchmark-secret-32+";
+    private static final FilterChain NOOP_CHAIN = (request, response) -> { };
+
+    @Param({"0", "10000"})
+    public long verifiedCacheSize;
+
+    private JwtAuthFilter filter;
+    private String token;
+    private MockHttpServletRequest request;
+    private MockHttpServletResponse response;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        TokenDenylist denylist = new TokenDenylist(3600);
+        JwtService jwtService = new JwtService(denylist, SECRET, 3600, verifiedCacheSize);
+        // PrincipalCache нужен только stateful-режиму
+        filter = new JwtAuthFilter(jwtService, null, denylist, true);
+        token = jwtService.generateToken(new AppUserDetails(1L, "bench", "-", true,
+                List.of(new SimpleGrantedAuthority("ROLE_USER"))));
+
+        request = new MockHttpServletRequest("GET", "/api/me/cards");
+        request.addHeader("Authorization", "Bearer " + token);
+        response = new MockHttpServletResponse();
+    }
+
+    @Benchmark
+    public void authenticate(Blackhole bh) throws Exception {
+        // OncePerRequestFilter помечает запрос атрибутом — снимаем его, чтобы фильтр отработал снова
+        request.clearAttributes();
+        filter.doFilter(request, response, NOOP_CHAIN);
+        bh.consume(SecurityContextHolder.getContext().getAuthentication());
+        SecurityContextHolder.clearContext();
+    }
+
+    /** Прежний путь {@code JwtService}: ключ и парсер создаются заново на каждую проверку. */
+    @Benchmark
+    public void rebuildKeyAndParser(Blackhole bh) {
+        bh.consume(Jwts.parserBuilder()
+                .setSigningKey(Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8)))
+                .build()
+                .parseClaimsJws(token)
+                .getBody());
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(JwtAuthBenchmark.class.getSimpleName())
+                .addProfiler("gc")
+                .build()).run();
+    }
+}
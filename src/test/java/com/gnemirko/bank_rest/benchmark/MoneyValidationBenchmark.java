@@ -0,0 +1,80 @@
+package com.gnemirko.bank_rest.benchmark;
+
+import com.gnemirko.bank_rest.entity.Money;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Путь проверки и перекладки суммы перевода без БД: BigDecimal (как было) против {@link Money}.
+ * Сумма приходит из JSON как BigDecimal, поэтому Money-вариант включает одну конвертацию на вызов.
+ * Аллокации — с профайлером GC ({@code gc.alloc.rate.norm}, байт на операцию):
+ * <pre>
+ * ./mvnw test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=com.gnemirko.bank_rest.benchmark.MoneyValidationBenchmark
+ * </pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MoneyValidationBenchmark {
+
+    private BigDecimal requestAmount;
+    private Money amountMoney;
+    private BigDecimal fromDecimal;
+    private BigDecimal toDecimal;
+    private Money fromMoney;
+    private Money toMoney;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        requestAmount = new BigDecimal("12.34");
+        amountMoney = Money.of(requestAmount);
+        fromDecimal = new BigDecimal("1000000.00");
+        toDecimal = new BigDecimal("50.00");
+        fromMoney = Money.of(fromDecimal);
+        toMoney = Money.of(toDecimal);
+    }
+
+    @Benchmark
+    public void bigDecimal(Blackhole bh) {
+        BigDecimal amount = requestAmount;
+        if (amount.compareTo(BigDecimal.ZERO) <= 0) throw new IllegalArgumentException("Amount must be positive");
+        if (fromDecimal.compareTo(amount) < 0) throw new IllegalArgumentException("Insufficient funds");
+        bh.consume(fromDecimal.subtract(amount));
+        bh.consume(toDecimal.add(amount));
+    }
+
+    @Benchmark
+    public void money(Blackhole bh) {
+        if (requestAmount.signum() <= 0) throw new IllegalArgumentException("Amount must be positive");
+        Money amount = Money.of(requestAmount);
+        if (fromMoney.lessThan(amount)) throw new IllegalArgumentException("Insufficient funds");
+        bh.consume(fromMoney.minus(amount));
+        bh.consume(toMoney.plus(amount));
+    }
+
+    /** Та же проверка, когда сумма уже в Money (пакет, отложенный перевод): без конвертации на входе. */
+    @Benchmark
+    public void moneyPreconverted(Blackhole bh) {
+        Money amount = amountMoney;
+        if (fromMoney.lessThan(amount)) throw new IllegalArgumentException("Insufficient funds");
+        bh.consume(fromMoney.minus(amount));
+        bh.consume(toMoney.plus(amount));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(MoneyValidationBenchmark.class.getSimpleName())
+                .addProfiler("gc")
+                .build()).run();
+    }
+}
@@ -0,0 +1,70 @@
+package com.gnemirko.bank_rest.benchmark;
+
+import com.gnemirko.bank_rest.entity.User;
+import com.gnemirko.bank_rest.service.CardService;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * PESSIMISTIC (SELECT ... FOR UPDATE + save) против CONDITIONAL (два условных UPDATE)
+ * на одном и том же наборе карт одного владельца. Чем меньше {@code cards}, тем выше конкуренция
+ * за строки. Нужна поднятая БД со схемой (см. docker-compose.yml).
+ * <pre>
+ * ./mvnw test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=com.gnemirko.bank_rest.benchmark.TransferStrategyBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+@Threads(16)
+public class TransferStrategyBenchmark {
+
+    private static final BigDecimal AMOUNT = new BigDecimal("1.00");
+
+    @Param({"PESSIMISTIC", "CONDITIONAL"})
+    public String mode;
+
+    @Param({"2", "16", "256"})
+    public int cards;
+
+    private ConfigurableApplicationContext ctx;
+    private CardService cardService;
+    private Long ownerId;
+    private long[] cardIds;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        ctx = BenchmarkFixtures.start("app.transfer.mode=" + mode);
+        cardService = ctx.getBean(CardService.class);
+        User owner = BenchmarkFixtures.seedOwner(ctx);
+        ownerId = owner.getId();
+        cardIds = BenchmarkFixtures.seedCards(ctx, owner, cards);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        ctx.close();
+    }
+
+    @Benchmark
+    public Object transfer() {
+        int[] pair = BenchmarkFixtures.randomPair(cardIds.length);
+        return cardService.transfer(ownerId, cardIds[pair[0]], cardIds[pair[1]], AMOUNT);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(TransferStrategyBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,37 @@
+package com.gnemirko.bank_rest.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PasswordConfigTest {
+
+    private final PasswordEncoder encoder = new PasswordConfig().passwordEncoder(5);
+
+    @Test
+    void encodesWithConfiguredCost() {
+        String hash = encoder.encode("secret");
+
+        assertTrue(hash.startsWith("$2a$05$"), hash);
+        assertTrue(encoder.matches("secret", hash));
+        assertFalse(encoder.upgradeEncoding(hash));
+    }
+
+    @Test
+    void hashWithOtherCost_isUpgraded_inBothDirections() {
+        String cheaper = new BCryptPasswordEncoder(4).encode("secret");
+        String costlier = new BCryptPasswordEncoder(6).encode("secret");
+
+        assertTrue(encoder.matches("secret", cheaper));
+        assertTrue(encoder.upgradeEncoding(cheaper));
+        assertTrue(encoder.upgradeEncoding(costlier));
+    }
+
+    @Test
+    void nonBcryptValue_isNotUpgraded() {
+        assertFalse(encoder.upgradeEncoding(null));
+        assertFalse(encoder.upgradeEncoding("-"));
+    }
+}
@@ -0,0 +1,119 @@
+package com.gnemirko.bank_rest.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/** Две встроенные H2 играют primary и реплику; каждая знает своё имя в таблице {@code node}. */
+class ReadWriteRoutingDataSourceTest {
+
+    private final EmbeddedDatabase primary = database("primary");
+    private final EmbeddedDatabase replica = database("replica");
+    private final AtomicReference<Long> currentUser = new AtomicReference<>();
+
+    private JdbcTemplate jdbc;
+    private TransactionTemplate readWrite;
+    private TransactionTemplate readOnly;
+
+    private static EmbeddedDatabase database(String name) {
+        EmbeddedDatabase db = new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .setName(name + "-" + System.nanoTime())
+                .build();
+        JdbcTemplate init = new JdbcTemplate(db);
+        init.execute("create table node(name varchar(16))");
+        init.update("insert into node(name) values (?)", name);
+        return db;
+    }
+
+    private ReplicaPins pins;
+
+    private void route(Duration pinAfterWrite) {
+        pins = new ReplicaPins(pinAfterWrite);
+        var routing = new ReadWriteRoutingDataSource(primary, replica, pins, currentUser::get);
+        var dataSource = new LazyConnectionDataSourceProxy(routing);
+        var txManager = new DataSourceTransactionManager(dataSource);
+        jdbc = new JdbcTemplate(dataSource);
+        readWrite = new TransactionTemplate(txManager);
+        readOnly = new TransactionTemplate(txManager);
+        readOnly.setReadOnly(true);
+    }
+
+    @AfterEach
+    void tearDown() {
+        primary.shutdown();
+        replica.shutdown();
+    }
+
+    private String node(TransactionTemplate tx) {
+        return tx.execute(status -> jdbc.queryForObject("select name from node", String.class));
+    }
+
+    @Test
+    void readOnlyTransaction_goesToReplica_restToPrimary() {
+        route(Duration.ofSeconds(5));
+
+        assertEquals("replica", node(readOnly));
+        assertEquals("primary", node(readWrite));
+        assertEquals("primary", jdbc.queryForObject("select name from node", String.class));
+    }
+
+    @Test
+    void writer_isPinnedToPrimary_otherUsersStillReadReplica() {
+        route(Duration.ofMinutes(1));
+        currentUser.set(1L);
+        readWrite.executeWithoutResult(status -> jdbc.update("update node set name = name"));
+
+        assertEquals("primary", node(readOnly));
+        currentUser.set(2L);
+        assertEquals("replica", node(readOnly));
+    }
+
+    @Test
+    void writeWithoutUser_pinsOwnerExplicitly_afterCommit() {
+        route(Duration.ofMinutes(1));
+        // фоновый поток (групповой коммит): пользователя в контексте нет, путь записи закрепляет владельца
+        readWrite.executeWithoutResult(status -> {
+            jdbc.update("update node set name = name");
+            pins.pin(1L);
+            assertFalse(pins.isPinned(1L), "pinned only after commit");
+        });
+
+        currentUser.set(1L);
+        assertEquals("primary", node(readOnly));
+        currentUser.set(2L);
+        assertEquals("replica", node(readOnly));
+    }
+
+    @Test
+    void rolledBackWrite_doesNotPin() {
+        route(Duration.ofMinutes(1));
+        currentUser.set(1L);
+        readWrite.executeWithoutResult(status -> {
+            jdbc.update("update node set name = name");
+            status.setRollbackOnly();
+        });
+
+        assertEquals("replica", node(readOnly));
+    }
+
+    @Test
+    void pinExpires() {
+        route(Duration.ZERO);
+        currentUser.set(1L);
+        readWrite.executeWithoutResult(status -> jdbc.update("update node set name = name"));
+
+        assertEquals("replica", node(readOnly));
+    }
+}
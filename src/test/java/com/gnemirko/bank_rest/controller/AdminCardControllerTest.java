@@ -2,12 +2,16 @@ package com.gnemirko.bank_rest.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.gnemirko.bank_rest.dto.CardResponse;
+import com.gnemirko.bank_rest.dto.CardStatsResponse;
 import com.gnemirko.bank_rest.dto.CreateCardRequest;
 import com.gnemirko.bank_rest.entity.Card;
 import com.gnemirko.bank_rest.entity.CardStatus;
+import com.gnemirko.bank_rest.entity.Money;
 import com.gnemirko.bank_rest.entity.User;
 import com.gnemirko.bank_rest.security.JwtAuthFilter;
+import com.gnemirko.bank_rest.service.CardExportService;
 import com.gnemirko.bank_rest.service.CardService;
+import com.gnemirko.bank_rest.service.CardStats;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -19,14 +23,17 @@ import org.springframework.data.domain.*;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
 import java.math.BigDecimal;
 import java.sql.Date;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.util.List;
 
 import static org.hamcrest.Matchers.endsWith;
 import static org.hamcrest.Matchers.startsWith;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -48,11 +55,18 @@ class AdminCardControllerTest {
     static class TestConfig {
         @Bean @Primary
         CardService cardService() { return Mockito.mock(CardService.class); }
+
+        @Bean @Primary
+        CardExportService cardExportService() { return Mockito.mock(CardExportService.class); }
+
+        @Bean @Primary
+        CardStats cardStats() { return Mockito.mock(CardStats.class); }
     }
 
     @Autowired MockMvc mvc;
     @Autowired ObjectMapper om;
     @Autowired CardService cardService;
+    @Autowired CardStats cardStats;
 
     private Card sampleCard() {
         User u = new User(); u.setId(1L); u.setName("Owner");
@@ -62,7 +76,7 @@ class AdminCardControllerTest {
         c.setNumber("4111111111111234");
         c.setStatus(CardStatus.ACTIVE);
         c.setExpiryDate(Date.valueOf(LocalDate.now().plusYears(1).withDayOfMonth(1)));
-        c.setBalance(new BigDecimal("123.45"));
+        c.setBalance(Money.of("123.45"));
         return c;
     }
 
@@ -121,7 +135,7 @@ class AdminCardControllerTest {
     @Test
     @WithMockUser(roles = "ADMIN")
     void patch_balance_updates() throws Exception {
-        Card c = sampleCard(); c.setBalance(new BigDecimal("999.99"));
+        Card c = sampleCard(); c.setBalance(Money.of("999.99"));
         when(cardService.updateBalance(100L, new BigDecimal("999.99"))).thenReturn(c);
 
         mvc.perform(patch("/api/admin/cards/100/balance")
@@ -137,4 +151,28 @@ class AdminCardControllerTest {
                 .andExpect(status().isOk());
         verify(cardService).delete(100L);
     }
-}
\ No newline at end of file
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void get_stats_servedFromCounters() throws Exception {
+        when(cardStats.snapshot()).thenReturn(new CardStatsResponse(
+                List.of(new CardStatsResponse.StatusStats(CardStatus.ACTIVE, 2, new BigDecimal("30.00"))),
+                2, new BigDecimal("30.00")));
+
+        mvc.perform(get("/api/admin/cards/stats"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalCards").value(2))
+                .andExpect(jsonPath("$.byStatus[0].status").value("ACTIVE"))
+                .andExpect(jsonPath("$.byStatus[0].balance").value(30.00));
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void export_runsWithOwnLongAsyncTimeout() throws Exception {
+        MvcResult result = mvc.perform(get("/api/admin/cards/export").param("format", "CSV"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        assertEquals(Duration.ofHours(2).toMillis(), result.getRequest().getAsyncContext().getTimeout());
+    }
+}
@@ -0,0 +1,98 @@
+package com.gnemirko.bank_rest.controller;
+
+import com.gnemirko.bank_rest.exception.ServiceOverloadedException;
+import com.gnemirko.bank_rest.security.JwtAuthFilter;
+import com.gnemirko.bank_rest.security.JwtService;
+import com.gnemirko.bank_rest.security.LoginExecutor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.*;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(
+        controllers = AuthController.class,
+        excludeFilters = @ComponentScan.Filter(
+                type = FilterType.ASSIGNABLE_TYPE,
+                classes = JwtAuthFilter.class
+        )
+)
+@AutoConfigureMockMvc(addFilters = false)
+@Import(AuthControllerTest.TestConfig.class)
+class AuthControllerTest {
+
+    @TestConfiguration
+    static class TestConfig {
+        @Bean @Primary
+        AuthenticationManager authenticationManager() { return Mockito.mock(AuthenticationManager.class); }
+
+        @Bean @Primary
+        JwtService jwtService() { return Mockito.mock(JwtService.class); }
+
+        @Bean @Primary
+        LoginExecutor loginExecutor() { return Mockito.mock(LoginExecutor.class); }
+    }
+
+    @Autowired MockMvc mvc;
+    @Autowired AuthenticationManager authenticationManager;
+    @Autowired JwtService jwtService;
+    @Autowired LoginExecutor loginExecutor;
+
+    private static final String BODY = "{\"username\":\"alice\",\"password\":\"secret\"}";
+
+    @BeforeEach
+    void resetMocks() {
+        reset(authenticationManager, jwtService, loginExecutor);
+    }
+
+    @Test
+    void login_authenticatesOnLoginExecutor_andReturnsToken() throws Exception {
+        UserDetails alice = User.withUsername("alice").password("").authorities("ROLE_USER").build();
+        when(loginExecutor.submit(any()))
+                .thenAnswer(inv -> CompletableFuture.supplyAsync(inv.<Supplier<?>>getArgument(0)));
+        when(authenticationManager.authenticate(any()))
+                .thenReturn(new UsernamePasswordAuthenticationToken(alice, null, alice.getAuthorities()));
+        when(jwtService.generateToken(alice)).thenReturn("jwt-token");
+
+        MvcResult started = mvc.perform(post("/api/auth/login").contentType(MediaType.APPLICATION_JSON).content(BODY))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.token").value("jwt-token"));
+    }
+
+    @Test
+    void login_fullQueue_isServiceUnavailableWithRetryAfter() throws Exception {
+        when(loginExecutor.submit(any()))
+                .thenThrow(new ServiceOverloadedException("Too many concurrent logins, retry later", Duration.ofSeconds(2)));
+
+        mvc.perform(post("/api/auth/login").contentType(MediaType.APPLICATION_JSON).content(BODY))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string(HttpHeaders.RETRY_AFTER, "2"))
+                .andExpect(jsonPath("$.title").value("Service overloaded"));
+        verifyNoInteractions(authenticationManager);
+    }
+}
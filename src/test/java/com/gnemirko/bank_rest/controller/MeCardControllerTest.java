@@ -0,0 +1,149 @@
+package com.gnemirko.bank_rest.controller;
+
+import com.gnemirko.bank_rest.dto.CardResponse;
+import com.gnemirko.bank_rest.dto.CardSliceResponse;
+import com.gnemirko.bank_rest.security.JwtAuthFilter;
+import com.gnemirko.bank_rest.service.CardService;
+import com.gnemirko.bank_rest.service.CardViewCache;
+import com.gnemirko.bank_rest.service.CountMode;
+import com.gnemirko.bank_rest.service.TaggedView;
+import com.gnemirko.bank_rest.service.TransactionHistoryService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.*;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.RequestPostProcessor;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.jwt;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(
+        controllers = MeCardController.class,
+        excludeFilters = @ComponentScan.Filter(
+                type = FilterType.ASSIGNABLE_TYPE,
+                classes = JwtAuthFilter.class
+        )
+)
+// фильтры безопасности нужны: jwt() кладёт JwtAuthenticationToken с uid в контекст через них
+@AutoConfigureMockMvc
+@Import(MeCardControllerTest.TestConfig.class)
+class MeCardControllerTest {
+
+    @TestConfiguration
+    static class TestConfig {
+        @Bean @Primary
+        CardService cardService() { return Mockito.mock(CardService.class); }
+
+        @Bean @Primary
+        CardViewCache cardViews() { return Mockito.mock(CardViewCache.class); }
+
+        @Bean @Primary
+        TransactionHistoryService historyService() { return Mockito.mock(TransactionHistoryService.class); }
+    }
+
+    @Autowired MockMvc mvc;
+    @Autowired CardService cardService;
+    @Autowired CardViewCache cardViews;
+
+    private static RequestPostProcessor user1() {
+        return jwt().jwt(j -> j.claim("uid", 1L)).authorities(new SimpleGrantedAuthority("ROLE_USER"));
+    }
+
+    private static CardResponse card() {
+        return new CardResponse(100L, "**** **** **** 1111", null, null, "ACTIVE", new BigDecimal("10.00"));
+    }
+
+    /** Кэш в этих тестах прозрачный: всегда загружает через сервис. */
+    @BeforeEach
+    void resetMocks() {
+        reset(cardService, cardViews);
+        when(cardViews.ownedCard(any(), any(), any(), any()))
+                .thenAnswer(inv -> inv.<Supplier<TaggedView<CardResponse>>>getArgument(3).get());
+        when(cardViews.ownedCards(any(), any(), any(), any()))
+                .thenAnswer(inv -> inv.<Supplier<TaggedView<CardSliceResponse>>>getArgument(3).get());
+    }
+
+    @Test
+    void card_returnsETag() throws Exception {
+        when(cardService.ownedCardTag(1L, 100L)).thenReturn(Optional.of("abc123"));
+        when(cardService.getOwned(1L, 100L)).thenReturn(new TaggedView<>(card(), "abc123"));
+
+        mvc.perform(get("/api/me/cards/100").with(user1()))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"abc123\""))
+                .andExpect(jsonPath("$.id").value(100));
+        verify(cardViews).ownedCard(eq(1L), eq(100L), eq("abc123"), any());
+    }
+
+    @Test
+    void card_matchingIfNoneMatch_isNotModified_withoutLoadingCard() throws Exception {
+        when(cardService.ownedCardTag(1L, 100L)).thenReturn(Optional.of("abc123"));
+
+        mvc.perform(get("/api/me/cards/100").with(user1())
+                        .header(HttpHeaders.IF_NONE_MATCH, "\"abc123\""))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+        verify(cardService, never()).getOwned(any(), any());
+    }
+
+    @Test
+    void card_staleIfNoneMatch_returnsFreshBody() throws Exception {
+        when(cardService.ownedCardTag(1L, 100L)).thenReturn(Optional.of("def456"));
+        when(cardService.getOwned(1L, 100L)).thenReturn(new TaggedView<>(card(), "def456"));
+
+        mvc.perform(get("/api/me/cards/100").with(user1())
+                        .header(HttpHeaders.IF_NONE_MATCH, "\"abc123\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"def456\""));
+    }
+
+    @Test
+    void card_writeBetweenTagAndBody_servesTagOfLoadedBody() throws Exception {
+        // отпечаток прочитан до перевода, тело — после: ETag должен описывать отданное тело
+        when(cardService.ownedCardTag(1L, 100L)).thenReturn(Optional.of("def456"));
+        when(cardService.getOwned(1L, 100L)).thenReturn(new TaggedView<>(card(), "ghi789"));
+
+        mvc.perform(get("/api/me/cards/100").with(user1())
+                        .header(HttpHeaders.IF_NONE_MATCH, "\"abc123\""))
+                .andExpect(status().isOk())
+                .andExpect(header().stringValues(HttpHeaders.ETAG, "\"ghi789\""));
+    }
+
+    @Test
+    void cards_etagDependsOnQuery_andMatchSkipsListing() throws Exception {
+        when(cardService.ownedCardsTag(1L)).thenReturn(Optional.of("abc123"));
+        when(cardService.listOwned(eq(1L), any(), any(), any(), eq(CountMode.NONE)))
+                .thenReturn(new TaggedView<>(new CardSliceResponse(List.of(card()), 0, 20, false, null, false), "abc123"));
+
+        String firstPage = mvc.perform(get("/api/me/cards").with(user1()))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        String secondPage = mvc.perform(get("/api/me/cards").param("page", "1").with(user1()))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotEquals(firstPage, secondPage);
+        // кэшу передаётся отпечаток карт без параметров запроса — тот же, что хранится со страницей
+        verify(cardViews, times(2)).ownedCards(eq(1L), any(), eq("abc123"), any());
+
+        clearInvocations(cardService);
+        mvc.perform(get("/api/me/cards").with(user1()).header(HttpHeaders.IF_NONE_MATCH, firstPage))
+                .andExpect(status().isNotModified());
+        verify(cardService, never()).listOwned(any(), any(), any(), any(), any());
+    }
+}
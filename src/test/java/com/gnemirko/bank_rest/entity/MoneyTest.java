@@ -0,0 +1,41 @@
+package com.gnemirko.bank_rest.entity;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MoneyTest {
+
+    @Test
+    void convertsToMinorUnits_andBack() {
+        Money m = Money.of(new BigDecimal("123.4"));
+
+        assertEquals(12340L, m.minor());
+        assertEquals(new BigDecimal("123.40"), m.toBigDecimal());
+        assertEquals(Money.of("1.500"), Money.ofMinor(150));
+    }
+
+    @Test
+    void subCentPrecision_isRejected() {
+        assertThrows(IllegalArgumentException.class, () -> Money.of("1.005"));
+    }
+
+    @Test
+    void arithmetic_isOverflowChecked() {
+        Money max = Money.ofMinor(Long.MAX_VALUE);
+
+        assertThrows(IllegalArgumentException.class, () -> max.plus(Money.ofMinor(1)));
+        assertThrows(IllegalArgumentException.class, () -> Money.ofMinor(Long.MIN_VALUE).negate());
+        assertThrows(IllegalArgumentException.class, () -> Money.of(new BigDecimal("1e30")));
+    }
+
+    @Test
+    void comparesByValue() {
+        assertTrue(Money.of("9.99").lessThan(Money.of("10.00")));
+        assertEquals(Money.of("0.01"), Money.of("10.00").minus(Money.of("9.99")));
+        assertEquals(Money.ZERO, new MoneyConverter().convertToEntityAttribute(new BigDecimal("0.00")));
+        assertNull(new MoneyConverter().convertToDatabaseColumn(null));
+    }
+}
@@ -0,0 +1,105 @@
+package com.gnemirko.bank_rest.repository;
+
+import com.gnemirko.bank_rest.entity.Card;
+import com.gnemirko.bank_rest.entity.CardBalanceShard;
+import com.gnemirko.bank_rest.entity.CardStatus;
+import com.gnemirko.bank_rest.entity.Money;
+import com.gnemirko.bank_rest.entity.Role;
+import com.gnemirko.bank_rest.entity.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.JdbcTemplateAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Балансовые UPDATE принимают суммы в копейках и сами переводят их в NUMERIC:
+ * проверяется на встроенной H2, что копейки не теряются и не сдвигаются на порядок.
+ */
+@DataJpaTest(properties = {
+        "spring.liquibase.enabled=false",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.auto_quote_keyword=true"
+})
+@ImportAutoConfiguration({JacksonAutoConfiguration.class, JdbcTemplateAutoConfiguration.class})
+class CardBalanceShardRepositoryTest {
+
+    @Configuration
+    @EntityScan(basePackageClasses = Card.class)
+    @EnableJpaRepositories(basePackageClasses = CardRepository.class)
+    static class Config {
+    }
+
+    @Autowired CardBalanceShardRepository shardRepository;
+    @Autowired CardRepository cardRepository;
+    @Autowired TestEntityManager em;
+
+    private User owner;
+    private Card card;
+
+    @BeforeEach
+    void setUp() {
+        owner = em.persist(User.builder().name("alice").passwordHash("-").role(Role.ROLE_USER).build());
+        card = em.persist(Card.builder()
+                .owner(owner)
+                .number("4111111111111111")
+                .expiryDate(Date.valueOf(LocalDate.now().plusYears(2)))
+                .status(CardStatus.ACTIVE)
+                .balance(Money.of("100.00"))
+                .build());
+        em.persist(new CardBalanceShard(card.getId(), 0, Money.of("10.25")));
+        em.persist(new CardBalanceShard(card.getId(), 1, Money.ZERO));
+        em.flush();
+        em.clear();
+    }
+
+    private long shardMinor(int shardNo) {
+        return em.find(CardBalanceShard.class, new CardBalanceShard.Key(card.getId(), shardNo)).getBalance().minor();
+    }
+
+    @Test
+    void lockAll_returnsBalancesInMinorUnits() {
+        List<Object[]> rows = shardRepository.lockAll(card.getId());
+
+        assertEquals(2, rows.size());
+        assertEquals(0, ((Number) rows.get(0)[0]).intValue());
+        assertEquals(1025L, ((Number) rows.get(0)[1]).longValue());
+        assertEquals(0L, ((Number) rows.get(1)[1]).longValue());
+    }
+
+    @Test
+    void creditDebitReset_applyMinorUnitsExactly() {
+        assertEquals(1, shardRepository.credit(card.getId(), 1, 1L));
+        assertEquals(1, shardRepository.debit(card.getId(), 0, 25L));
+        em.clear();
+        assertEquals(1000L, shardMinor(0));
+        assertEquals(1L, shardMinor(1));
+
+        assertEquals(2, shardRepository.reset(card.getId(), 4207L));
+        em.clear();
+        assertEquals(4207L, shardMinor(0));
+        assertEquals(0L, shardMinor(1));
+    }
+
+    @Test
+    void conditionalCardUpdates_compareAndApplyMinorUnits() {
+        assertEquals(0, cardRepository.debitIfAllowed(card.getId(), owner.getId(), 10001L));
+        assertEquals(1, cardRepository.debitIfAllowed(card.getId(), owner.getId(), 10000L));
+        assertEquals(1, cardRepository.creditIfAllowed(card.getId(), owner.getId(), 5L));
+        em.clear();
+
+        assertEquals(Money.of("0.05"), em.find(Card.class, card.getId()).getBalance());
+    }
+}
@@ -0,0 +1,124 @@
+package com.gnemirko.bank_rest.repository;
+
+import com.gnemirko.bank_rest.dto.CardRow;
+import com.gnemirko.bank_rest.entity.Card;
+import com.gnemirko.bank_rest.entity.CardStatus;
+import com.gnemirko.bank_rest.entity.Money;
+import com.gnemirko.bank_rest.entity.Role;
+import com.gnemirko.bank_rest.entity.User;
+import com.gnemirko.bank_rest.util.CardSpecification;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.JdbcTemplateAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Списки карт на встроенной H2 со схемой из сущностей: число SQL-statement-ов не должно
+ * зависеть от числа карт и владельцев на странице (N+1 по {@code owner} ловится здесь).
+ */
+@DataJpaTest(properties = {
+        "spring.liquibase.enabled=false",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "spring.jpa.properties.hibernate.auto_quote_keyword=true"
+})
+@ImportAutoConfiguration({JacksonAutoConfiguration.class, JdbcTemplateAutoConfiguration.class})
+class CardListingRepositoryTest {
+
+    @Configuration
+    @EntityScan(basePackageClasses = Card.class)
+    @EnableJpaRepositories(basePackageClasses = CardRepository.class)
+    static class Config {
+    }
+
+    @Autowired CardRepository cardRepository;
+    @Autowired TestEntityManager em;
+
+    private Statistics statistics;
+    private User alice;
+
+    @BeforeEach
+    void setUp() {
+        alice = persistUser("alice");
+        User bob = persistUser("bob");
+        for (int i = 0; i < 5; i++) {
+            persistCard(alice, 1000 + i, CardStatus.ACTIVE);
+            persistCard(bob, 2000 + i, i % 2 == 0 ? CardStatus.ACTIVE : CardStatus.BLOCKED);
+        }
+        em.flush();
+        em.clear();
+        statistics = em.getEntityManager().getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    private User persistUser(String name) {
+        return em.persist(User.builder().name(name).passwordHash("-").role(Role.ROLE_USER).build());
+    }
+
+    private void persistCard(User owner, int suffix, CardStatus status) {
+        em.persist(Card.builder()
+                .owner(owner)
+                .number("411111111111" + suffix)
+                .expiryDate(Date.valueOf(LocalDate.now().plusYears(2)))
+                .status(status)
+                .balance(Money.of("10.00"))
+                .build());
+    }
+
+    @Test
+    void rowPage_isOneSelectPlusOneCount_forManyOwners() {
+        Page<CardRow> page = cardRepository.findRowPage(Specification.allOf(), PageRequest.of(0, 4, Sort.by("id")));
+
+        assertEquals(4, page.getContent().size());
+        assertEquals(10, page.getTotalElements());
+        assertNotNull(page.getContent().getFirst().ownerName());
+        assertEquals(2, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+    }
+
+    @Test
+    void rowSlice_isSingleSelect_withFilters() {
+        Specification<Card> spec = Specification.allOf(
+                CardSpecification.hasOwnerName("li"),
+                CardSpecification.hasStatus(CardStatus.ACTIVE),
+                CardSpecification.hasLast4("1003"));
+
+        Slice<CardRow> slice = cardRepository.findRowSlice(spec, PageRequest.of(0, 10, Sort.by("id")));
+
+        assertEquals(1, slice.getNumberOfElements());
+        assertFalse(slice.hasNext());
+        assertEquals(alice.getId(), slice.getContent().getFirst().ownerId());
+        assertEquals(Money.of("10.00"), slice.getContent().getFirst().balance());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void seekRows_isSingleSelect() {
+        List<CardRow> rows = cardRepository.findRows(
+                CardSpecification.idAfter(0L), Sort.by("id"), 6);
+
+        assertEquals(6, rows.size());
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+    }
+}
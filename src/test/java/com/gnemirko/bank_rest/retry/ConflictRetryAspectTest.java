@@ -0,0 +1,67 @@
+package com.gnemirko.bank_rest.retry;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConflictRetryAspectTest {
+
+    static class FlakyService {
+        final AtomicInteger calls = new AtomicInteger();
+        int failures;
+
+        @RetryOnConflict
+        public String run() {
+            if (calls.incrementAndGet() <= failures) {
+                throw new ObjectOptimisticLockingFailureException("Card", 10L);
+            }
+            return "ok";
+        }
+    }
+
+    SimpleMeterRegistry registry;
+    FlakyService target;
+    FlakyService proxy;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        ConflictRetryAspect aspect = new ConflictRetryAspect(registry);
+        ReflectionTestUtils.setField(aspect, "maxAttempts", 3);
+        ReflectionTestUtils.setField(aspect, "initialBackoffMs", 1L);
+        ReflectionTestUtils.setField(aspect, "maxBackoffMs", 2L);
+
+        target = new FlakyService();
+        AspectJProxyFactory factory = new AspectJProxyFactory(target);
+        factory.setProxyTargetClass(true);
+        factory.addAspect(aspect);
+        proxy = factory.getProxy();
+    }
+
+    @Test
+    void conflictThenSuccess_retriedAndCounted() {
+        target.failures = 2;
+
+        assertEquals("ok", proxy.run());
+        assertEquals(3, target.calls.get());
+        assertEquals(3.0, registry.find("bank.conflict.attempts").counter().count());
+        assertEquals(2.0, registry.find("bank.conflict.conflicts").counter().count());
+        assertNull(registry.find("bank.conflict.exhausted").counter());
+    }
+
+    @Test
+    void budgetExhausted_rethrows() {
+        target.failures = 10;
+
+        assertThrows(ObjectOptimisticLockingFailureException.class, () -> proxy.run());
+        assertEquals(3, target.calls.get());
+        assertEquals(1.0, registry.find("bank.conflict.exhausted").counter().count());
+    }
+}
@@ -0,0 +1,138 @@
+package com.gnemirko.bank_rest.security;
+
+import io.jsonwebtoken.Claims;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class JwtAuthFilterTest {
+
+    @Mock PrincipalCache principals;
+
+    TokenDenylist denylist = new TokenDenylist(3600);
+    JwtService jwtService = new JwtService(denylist, "test-secret-test-secret-test-secret-42", 3600, 100);
+
+    @AfterEach
+    void clearContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    private String login(long uid, String role) {
+        return jwtService.generateToken(new AppUserDetails(uid, "alice", "hash", true, List.of(new SimpleGrantedAuthority(role))));
+    }
+
+    private void authenticate(JwtAuthFilter filter, String token) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/me/cards");
+        request.addHeader("Authorization", "Bearer " + token);
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+    }
+
+    @Test
+    void token_carriesUidRolesAndJti() {
+        Claims claims = jwtService.verify(login(7L, "ROLE_USER"));
+
+        assertEquals(7, ((Number) claims.get(JwtService.UID_CLAIM)).intValue());
+        assertEquals("ROLE_USER", claims.get(JwtService.ROLES_CLAIM));
+        assertNotNull(claims.getId());
+    }
+
+    @Test
+    void stateless_buildsAuthenticationFromClaims_withoutUserLookup() throws Exception {
+        JwtAuthFilter filter = new JwtAuthFilter(jwtService, principals, denylist, true);
+
+        authenticate(filter, login(7L, "ROLE_USER"));
+
+        var auth = SecurityContextHolder.getContext().getAuthentication();
+        assertInstanceOf(JwtAuthenticationToken.class, auth);
+        assertEquals(List.of("ROLE_USER"), auth.getAuthorities().stream().map(GrantedAuthority::getAuthority).toList());
+        assertEquals(7L, Auth.currentUserId());
+        verifyNoInteractions(principals);
+    }
+
+    @Test
+    void stateless_revokedUserTokens_areRejected() throws Exception {
+        JwtAuthFilter filter = new JwtAuthFilter(jwtService, principals, denylist, true);
+        String token = login(7L, "ROLE_USER");
+
+        denylist.revokeUser(7L);
+        authenticate(filter, token);
+
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
+    }
+
+    @Test
+    void stateless_tokenIssuedAfterRevocation_isAccepted() throws Exception {
+        JwtAuthFilter filter = new JwtAuthFilter(jwtService, principals, denylist, true);
+        String old = login(7L, "ROLE_USER");
+
+        denylist.revokeUser(7L);
+        String fresh = login(7L, "ROLE_ADMIN");
+
+        authenticate(filter, old);
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
+        authenticate(filter, fresh);
+        assertEquals(7L, Auth.currentUserId());
+    }
+
+    @Test
+    void stateless_revokedJti_isRejected_otherTokensOfUserStillWork() throws Exception {
+        JwtAuthFilter filter = new JwtAuthFilter(jwtService, principals, denylist, true);
+        String revoked = login(7L, "ROLE_USER");
+        String other = login(7L, "ROLE_USER");
+
+        denylist.revoke(jwtService.verify(revoked).getId());
+
+        authenticate(filter, revoked);
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
+        authenticate(filter, other);
+        assertEquals(7L, Auth.currentUserId());
+    }
+
+    @Test
+    void stateless_tamperedToken_isRejected() throws Exception {
+        JwtAuthFilter filter = new JwtAuthFilter(jwtService, principals, denylist, true);
+        String token = login(7L, "ROLE_USER");
+
+        authenticate(filter, JwtServiceTest.tamper(token));
+
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
+    }
+
+    @Test
+    void stateful_takesRolesFromUserStore() throws Exception {
+        JwtAuthFilter filter = new JwtAuthFilter(jwtService, principals, denylist, false);
+        when(principals.load("alice")).thenReturn(User.withUsername("alice").password("").authorities("ROLE_ADMIN").build());
+
+        authenticate(filter, login(7L, "ROLE_USER"));
+
+        var auth = SecurityContextHolder.getContext().getAuthentication();
+        assertEquals(List.of("ROLE_ADMIN"), auth.getAuthorities().stream().map(GrantedAuthority::getAuthority).toList());
+        assertEquals(7L, Auth.currentUserId());
+    }
+
+    @Test
+    void stateful_disabledUser_isNotAuthenticated() throws Exception {
+        JwtAuthFilter filter = new JwtAuthFilter(jwtService, principals, denylist, false);
+        when(principals.load("alice")).thenReturn(User.withUsername("alice").password("").authorities("ROLE_USER").disabled(true).build());
+
+        authenticate(filter, login(7L, "ROLE_USER"));
+
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
+    }
+}
@@ -0,0 +1,73 @@
+package com.gnemirko.bank_rest.security;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JwtServiceTest {
+
+    private static final String SECRET = "test-secret-test-secret-test-secret-42";
+
+    private final TokenDenylist denylist = new TokenDenylist(3600);
+
+    private static AppUserDetails alice() {
+        return new AppUserDetails(7L, "alice", "hash", true, List.of(new SimpleGrantedAuthority("ROLE_USER")));
+    }
+
+    /** Меняет первый символ подписи (последний символ base64 может содержать только биты выравнивания). */
+    static String tamper(String token) {
+        int sig = token.lastIndexOf('.') + 1;
+        char c = token.charAt(sig) == 'A' ? 'B' : 'A';
+        return token.substring(0, sig) + c + token.substring(sig + 1);
+    }
+
+    @Test
+    void repeatedVerification_isServedFromVerifiedCache() {
+        JwtService jwtService = new JwtService(denylist, SECRET, 3600, 100);
+        String token = jwtService.generateToken(alice());
+
+        Claims first = jwtService.verify(token);
+
+        assertSame(first, jwtService.verify(token));
+        assertEquals("alice", jwtService.extractUsername(token));
+    }
+
+    @Test
+    void disabledCache_parsesEveryTime() {
+        JwtService jwtService = new JwtService(denylist, SECRET, 3600, 0);
+        String token = jwtService.generateToken(alice());
+
+        assertNotSame(jwtService.verify(token), jwtService.verify(token));
+    }
+
+    @Test
+    void tamperedToken_isRejected_evenAfterOriginalWasCached() {
+        JwtService jwtService = new JwtService(denylist, SECRET, 3600, 100);
+        String token = jwtService.generateToken(alice());
+        jwtService.verify(token);
+
+        assertThrows(JwtException.class, () -> jwtService.verify(tamper(token)));
+    }
+
+    @Test
+    void tokenSignedWithAnotherSecret_isRejected() {
+        String foreign = new JwtService(denylist, SECRET + "-other", 3600, 100).generateToken(alice());
+
+        assertThrows(JwtException.class, () -> new JwtService(denylist, SECRET, 3600, 100).verify(foreign));
+    }
+
+    @Test
+    void expiredToken_isRejected() {
+        JwtService jwtService = new JwtService(denylist, SECRET, -60, 100);
+        String token = jwtService.generateToken(alice());
+
+        assertThrows(ExpiredJwtException.class, () -> jwtService.verify(token));
+        assertThrows(ExpiredJwtException.class, () -> jwtService.verify(token));
+    }
+}
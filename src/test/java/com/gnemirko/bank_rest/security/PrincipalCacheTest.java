@@ -0,0 +1,68 @@
+package com.gnemirko.bank_rest.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PrincipalCacheTest {
+
+    @Mock UserDetailsService userDetailsService;
+
+    SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    PrincipalCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new PrincipalCache(userDetailsService, registry, Duration.ofMinutes(1), 100);
+    }
+
+    private static UserDetails alice(String role) {
+        return User.withUsername("alice").password("$2a$hash").authorities(role).build();
+    }
+
+    @Test
+    void repeatedRequests_loadUserOnce_andTimeTheLoad() {
+        when(userDetailsService.loadUserByUsername("alice")).thenReturn(alice("ROLE_USER"));
+
+        cache.load("alice");
+        UserDetails user = cache.load("alice");
+
+        verify(userDetailsService, times(1)).loadUserByUsername("alice");
+        assertEquals(1, registry.get("auth.principal.load").timer().count());
+        assertEquals("", user.getPassword(), "password hash is not kept in the cache");
+    }
+
+    @Test
+    void evict_makesRoleChangeVisibleOnNextRequest() {
+        when(userDetailsService.loadUserByUsername("alice"))
+                .thenReturn(alice("ROLE_USER"), alice("ROLE_ADMIN"));
+
+        assertEquals("ROLE_USER", cache.load("alice").getAuthorities().iterator().next().getAuthority());
+        cache.evict("alice");
+
+        assertEquals("ROLE_ADMIN", cache.load("alice").getAuthorities().iterator().next().getAuthority());
+    }
+
+    @Test
+    void unknownUser_isNotCached() {
+        when(userDetailsService.loadUserByUsername("ghost")).thenThrow(new UsernameNotFoundException("ghost"));
+
+        assertThrows(UsernameNotFoundException.class, () -> cache.load("ghost"));
+        assertThrows(UsernameNotFoundException.class, () -> cache.load("ghost"));
+
+        verify(userDetailsService, times(2)).loadUserByUsername("ghost");
+    }
+}
@@ -0,0 +1,95 @@
+package com.gnemirko.bank_rest.service;
+
+import com.gnemirko.bank_rest.entity.Money;
+import com.gnemirko.bank_rest.entity.Transaction;
+import com.gnemirko.bank_rest.entity.TransactionStatus;
+import com.gnemirko.bank_rest.exception.ResourceNotFoundException;
+import com.gnemirko.bank_rest.repository.CardRepository;
+import com.gnemirko.bank_rest.repository.TransactionRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AsyncTransferServiceImplTest {
+
+    @Mock CardService cardService;
+    @Mock CardRepository cardRepository;
+    @Mock TransactionRepository transactionRepository;
+    @Mock LedgerWriter ledgerWriter;
+    @Mock PlatformTransactionManager transactionManager;
+
+    AsyncTransferServiceImpl service;
+
+    @BeforeEach
+    void setUp() {
+        service = new AsyncTransferServiceImpl(cardService, cardRepository, transactionRepository,
+                ledgerWriter, transactionManager, 4, Duration.ofMinutes(1));
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    private static Transaction pending(long id) {
+        return Transaction.builder()
+                .id(id).fromCardId(10L).toCardId(20L)
+                .amount(Money.of("30.00"))
+                .status(TransactionStatus.PENDING)
+                .createdAt(Instant.now())
+                .build();
+    }
+
+    @Test
+    void submit_persistsPending_andSettlesInBackground() {
+        when(cardRepository.findOwnerIdById(10L)).thenReturn(Optional.of(1L));
+        when(ledgerWriter.appendPending(10L, 20L, Money.of("30.00"))).thenReturn(pending(700L));
+
+        Transaction accepted = service.submit(1L, 10L, 20L, new BigDecimal("30.00"));
+
+        assertEquals(TransactionStatus.PENDING, accepted.getStatus());
+        verify(cardService, timeout(5000)).settle(700L);
+        verify(ledgerWriter, never()).fail(any(), any());
+    }
+
+    @Test
+    void businessRejection_marksTransferFailed() {
+        when(cardRepository.findOwnerIdById(10L)).thenReturn(Optional.of(1L));
+        when(ledgerWriter.appendPending(10L, 20L, Money.of("30.00"))).thenReturn(pending(701L));
+        when(cardService.settle(701L)).thenThrow(new IllegalArgumentException("Insufficient funds"));
+
+        service.submit(1L, 10L, 20L, new BigDecimal("30.00"));
+
+        verify(ledgerWriter, timeout(5000)).fail(701L, "Insufficient funds");
+    }
+
+    @Test
+    void foreignSourceCard_rejectedSynchronously() {
+        when(cardRepository.findOwnerIdById(10L)).thenReturn(Optional.of(2L));
+
+        assertThrows(AccessDeniedException.class, () -> service.submit(1L, 10L, 20L, new BigDecimal("30.00")));
+        verifyNoInteractions(ledgerWriter, cardService);
+    }
+
+    @Test
+    void get_hidesTransfersOfOtherUsers() {
+        when(transactionRepository.findById(700L)).thenReturn(Optional.of(pending(700L)));
+        when(cardRepository.findOwnerIdById(10L)).thenReturn(Optional.of(2L));
+
+        assertThrows(ResourceNotFoundException.class, () -> service.get(1L, 700L));
+    }
+}
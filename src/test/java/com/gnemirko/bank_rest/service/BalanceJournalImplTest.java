@@ -0,0 +1,85 @@
+package com.gnemirko.bank_rest.service;
+
+import com.gnemirko.bank_rest.entity.BalanceJournalEntry;
+import com.gnemirko.bank_rest.entity.Money;
+import com.gnemirko.bank_rest.entity.Transaction;
+import com.gnemirko.bank_rest.repository.BalanceJournalRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BalanceJournalImplTest {
+
+    @Mock BalanceJournalRepository journalRepository;
+    @Mock PlatformTransactionManager transactionManager;
+
+    BalanceJournalImpl journal;
+
+    @BeforeEach
+    void setUp() {
+        journal = new BalanceJournalImpl(journalRepository, transactionManager, 100, 2, 10);
+    }
+
+    @Test
+    void transfer_appendsDebitAndCreditDeltas() {
+        Transaction tx = Transaction.builder().id(5L).fromCardId(10L).toCardId(20L)
+                .amount(Money.of("30.00")).build();
+
+        journal.recordTransfers(List.of(tx));
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<BalanceJournalEntry>> saved = ArgumentCaptor.forClass(List.class);
+        verify(journalRepository).saveAll(saved.capture());
+        assertEquals(2, saved.getValue().size());
+        assertEquals(Money.of("-30.00"), saved.getValue().get(0).getDelta());
+        assertEquals(20L, saved.getValue().get(1).getCardId());
+        assertEquals(5L, saved.getValue().get(1).getTransactionId());
+    }
+
+    @Test
+    void zeroDelta_isNotRecorded() {
+        journal.record(10L, Money.ZERO);
+        verifyNoInteractions(journalRepository);
+    }
+
+    @Test
+    void compact_repeatsPassesUntilQueueIsEmpty() {
+        when(journalRepository.compact(100)).thenReturn(3, 1, 0);
+
+        assertEquals(4, journal.compact());
+        verify(journalRepository, times(3)).lockExclusive(anyLong());
+    }
+
+    @Test
+    void rebuild_splitsCardRange_andReportsMismatches() {
+        when(journalRepository.cardIdRange()).thenReturn(List.<Object[]>of(new Object[]{1L, 25L}));
+        when(journalRepository.replay(anyLong(), anyLong())).thenAnswer(inv -> {
+            long lo = inv.getArgument(0);
+            return lo == 11L
+                    ? List.<Object[]>of(new Object[]{12L, new BigDecimal("5.00"), new BigDecimal("7.00")})
+                    : List.<Object[]>of(new Object[]{lo, new BigDecimal("1.00"), new BigDecimal("1.00")});
+        });
+
+        JournalRebuildReport report = journal.rebuild();
+
+        // 1..10, 11..20, 21..25
+        verify(journalRepository).rebuildSnapshots(1L, 10L);
+        verify(journalRepository).rebuildSnapshots(11L, 20L);
+        verify(journalRepository).rebuildSnapshots(21L, 25L);
+        assertEquals(3, report.cardsChecked());
+        assertEquals(1, report.mismatches().size());
+        assertEquals(12L, report.mismatches().get(0).cardId());
+    }
+}
@@ -0,0 +1,112 @@
+package com.gnemirko.bank_rest.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gnemirko.bank_rest.dto.CardRow;
+import com.gnemirko.bank_rest.entity.CardStatus;
+import com.gnemirko.bank_rest.entity.Money;
+import com.gnemirko.bank_rest.entity.Role;
+import com.gnemirko.bank_rest.repository.CardRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class CardExportServiceImplTest {
+
+    @Mock CardRepository cardRepository;
+    @Mock PlatformTransactionManager transactionManager;
+
+    private final ObjectMapper om = new ObjectMapper();
+    private CardExportServiceImpl service;
+
+    @BeforeEach
+    void setUp() {
+        service = new CardExportServiceImpl(cardRepository, om, transactionManager, 500);
+    }
+
+    private static CardRow row(long id, String number, String ownerName, String balance) {
+        return new CardRow(id, number, Date.valueOf(LocalDate.of(2030, 12, 1)), CardStatus.ACTIVE,
+                Money.of(balance), null, 7L, Role.ROLE_USER, ownerName, true);
+    }
+
+    @Test
+    void ndjson_writesOneMaskedCardPerLine() throws Exception {
+        when(cardRepository.streamRows(any(), eq(Sort.by("id")), eq(500)))
+                .thenReturn(Stream.of(row(1, "4111111111111111", "Alice", "10.00"), row(2, "4111111111112222", "Bob", "0.50")));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long count = service.export(null, null, null, ExportFormat.NDJSON, out);
+
+        assertEquals(2, count);
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, lines.length);
+        JsonNode first = om.readTree(lines[0]);
+        assertEquals(1, first.get("id").asLong());
+        assertEquals("**** **** **** 1111", first.get("maskedNumber").asText());
+        assertEquals("Alice", first.get("owner").get("name").asText());
+        assertEquals("**** **** **** 2222", om.readTree(lines[1]).get("maskedNumber").asText());
+        assertFalse(out.toString(StandardCharsets.UTF_8).contains("4111111111111111"));
+    }
+
+    @Test
+    void csv_writesHeaderAndQuotesSpecialValues() throws Exception {
+        when(cardRepository.streamRows(any(), any(), eq(500)))
+                .thenReturn(Stream.of(row(1, "4111111111111111", "Doe, \"Jr\"", "10.00")));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long count = service.export("doe", CardStatus.ACTIVE, null, ExportFormat.CSV, out);
+
+        assertEquals(1, count);
+        assertEquals("id,maskedNumber,ownerId,ownerName,expiry,status,balance\r\n"
+                        + "1,**** **** **** 1111,7,\"Doe, \"\"Jr\"\"\",2030-12-01,ACTIVE,10.00\r\n",
+                out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void emptyExport_writesNothingButHeader() throws Exception {
+        when(cardRepository.streamRows(any(), any(), eq(500))).thenReturn(Stream.empty(), Stream.empty());
+        ByteArrayOutputStream ndjson = new ByteArrayOutputStream();
+        ByteArrayOutputStream csv = new ByteArrayOutputStream();
+
+        assertEquals(0, service.export(null, null, null, ExportFormat.NDJSON, ndjson));
+        assertEquals(0, service.export(null, null, null, ExportFormat.CSV, csv));
+
+        assertEquals("", ndjson.toString(StandardCharsets.UTF_8));
+        assertEquals("id,maskedNumber,ownerId,ownerName,expiry,status,balance\r\n", csv.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void csvEscaping() {
+        assertEquals("plain", CardExportServiceImpl.csv("plain"));
+        assertEquals("\"a,b\"", CardExportServiceImpl.csv("a,b"));
+        assertEquals("\"line\nbreak\"", CardExportServiceImpl.csv("line\nbreak"));
+        assertEquals("", CardExportServiceImpl.csv(null));
+    }
+
+    @Test
+    void csvNeutralizesFormulas() {
+        assertEquals("'=1+2", CardExportServiceImpl.csv("=1+2"));
+        assertEquals("'+7 999", CardExportServiceImpl.csv("+7 999"));
+        assertEquals("'-Doe", CardExportServiceImpl.csv("-Doe"));
+        assertEquals("'@SUM(A1)", CardExportServiceImpl.csv("@SUM(A1)"));
+        assertEquals("\"'=HYPERLINK(\"\"http://x\"\",\"\"y\"\")\"",
+                CardExportServiceImpl.csv("=HYPERLINK(\"http://x\",\"y\")"));
+        assertEquals("Doe-Smith", CardExportServiceImpl.csv("Doe-Smith"));
+    }
+}
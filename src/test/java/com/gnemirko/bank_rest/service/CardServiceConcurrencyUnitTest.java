@@ -1,14 +1,18 @@
 package com.gnemirko.bank_rest.service;
 
+import com.gnemirko.bank_rest.config.ReplicaPins;
 import com.gnemirko.bank_rest.entity.Card;
 import com.gnemirko.bank_rest.entity.CardStatus;
+import com.gnemirko.bank_rest.entity.Money;
 import com.gnemirko.bank_rest.entity.User;
+import com.gnemirko.bank_rest.repository.CardBalanceShardRepository;
 import com.gnemirko.bank_rest.repository.CardRepository;
 import com.gnemirko.bank_rest.repository.UserRepository;
 import jakarta.persistence.EntityNotFoundException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
+import org.springframework.dao.CannotAcquireLockException;
 
 import java.math.BigDecimal;
 import java.sql.Date;
@@ -27,6 +31,7 @@ class CardServiceConcurrencyUnitTest {
 
     private CardRepository cardRepository;
     private UserRepository userRepository;
+    private LedgerWriter ledgerWriter;
     private CardServiceImpl service;
 
     private final Map<Long, Card> store = new ConcurrentHashMap<>();
@@ -43,8 +48,13 @@ class CardServiceConcurrencyUnitTest {
     void setUp() {
         cardRepository = Mockito.mock(CardRepository.class, Mockito.withSettings().lenient());
         userRepository = Mockito.mock(UserRepository.class, Mockito.withSettings().lenient());
+        ledgerWriter = Mockito.mock(LedgerWriter.class, Mockito.withSettings().lenient());
+        ShardedBalanceService shardedBalances = Mockito.mock(ShardedBalanceService.class, Mockito.withSettings().lenient());
+        BalanceJournal balanceJournal = Mockito.mock(BalanceJournal.class, Mockito.withSettings().lenient());
+        CardStats cardStats = Mockito.mock(CardStats.class, Mockito.withSettings().lenient());
+        CardViewCache cardViews = Mockito.mock(CardViewCache.class, Mockito.withSettings().lenient());
 
-        service = new CardServiceImpl(cardRepository, userRepository);
+        service = new CardServiceImpl(cardRepository, userRepository, ledgerWriter, shardedBalances, balanceJournal, cardStats, cardViews, Mockito.mock(ReplicaPins.class));
 
         owner = new User();
         owner.setId(1L);
@@ -56,7 +66,7 @@ class CardServiceConcurrencyUnitTest {
         from.setNumber("4111111111111111");
         from.setStatus(CardStatus.ACTIVE);
         from.setExpiryDate(Date.valueOf(LocalDate.now().plusYears(1).withDayOfMonth(1)));
-        from.setBalance(new BigDecimal("100.00"));
+        from.setBalance(Money.of("100.00"));
 
         to = new Card();
         to.setId(20L);
@@ -64,7 +74,7 @@ class CardServiceConcurrencyUnitTest {
         to.setNumber("5555444433331111");
         to.setStatus(CardStatus.ACTIVE);
         to.setExpiryDate(Date.valueOf(LocalDate.now().plusYears(1).withDayOfMonth(1)));
-        to.setBalance(new BigDecimal("50.00"));
+        to.setBalance(Money.of("50.00"));
 
         store.put(from.getId(), deepCopy(from));
         store.put(to.getId(), deepCopy(to));
@@ -161,18 +171,126 @@ class CardServiceConcurrencyUnitTest {
         assertEquals(1, failure.get(), "ровно один перевод должен упасть");
 
 
-        BigDecimal fromBal = freshFrom.getBalance();
-        BigDecimal toBal   = freshTo.getBalance();
+        Money fromBal = freshFrom.getBalance();
+        Money toBal   = freshTo.getBalance();
 
         boolean variantA = eq(fromBal, "20.00") && eq(toBal, "130.00");
         boolean variantB = eq(fromBal, "70.00") && eq(toBal, "80.00");
         assertTrue(variantA || variantB, "Unexpected balances: from=" + fromBal + " to=" + toBal);
     }
 
+    /**
+     * Встречные переводы между двумя шардированными картами: строки карт берутся FOR SHARE и не
+     * сериализуют переводы, поэтому шарды должны блокироваться в порядке id карт. Каждый поток,
+     * взяв первую блокировку шарда, ждёт, пока второй возьмёт свою, — при обратном порядке они
+     * ждали бы друг друга по кругу.
+     */
+    @Test
+    void opposingTransfersBetweenShardedCards_doNotDeadlock() throws Exception {
+        // баланс шардов в копейках, как его отдаёт lockAll
+        Map<String, Long> shards = new ConcurrentHashMap<>();
+        Map<String, ReentrantLock> shardLocks = new ConcurrentHashMap<>();
+        ThreadLocal<List<ReentrantLock>> held = ThreadLocal.withInitial(ArrayList::new);
+        CountDownLatch firstShardLocks = new CountDownLatch(2);
+
+        class ShardRows {
+            void lock(Long cardId, int shardNo) {
+                ReentrantLock lock = shardLocks.computeIfAbsent(cardId + ":" + shardNo, k -> new ReentrantLock());
+                if (lock.isHeldByCurrentThread()) return;
+                try {
+                    if (!lock.tryLock(2, TimeUnit.SECONDS)) {
+                        throw new CannotAcquireLockException("deadlock on shard " + cardId + ":" + shardNo);
+                    }
+                    boolean first = held.get().isEmpty();
+                    held.get().add(lock);
+                    if (first) {
+                        firstShardLocks.countDown();
+                        firstShardLocks.await(300, TimeUnit.MILLISECONDS);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException(e);
+                }
+            }
+
+            void releaseAll() {
+                held.get().forEach(ReentrantLock::unlock);
+                held.remove();
+            }
+        }
+        ShardRows rows = new ShardRows();
+
+        CardBalanceShardRepository shardRepository = Mockito.mock(CardBalanceShardRepository.class, Mockito.withSettings().lenient());
+        when(shardRepository.lockAll(anyLong())).thenAnswer(inv -> {
+            Long cardId = inv.getArgument(0, Long.class);
+            List<Object[]> result = new ArrayList<>();
+            for (int no = 0; no < 2; no++) {
+                rows.lock(cardId, no);
+                result.add(new Object[]{no, shards.get(cardId + ":" + no)});
+            }
+            return result;
+        });
+        when(shardRepository.lockOne(anyLong(), anyInt())).thenAnswer(inv -> {
+            rows.lock(inv.getArgument(0, Long.class), inv.getArgument(1, Integer.class));
+            return List.of(inv.getArgument(1, Integer.class));
+        });
+        when(shardRepository.credit(anyLong(), anyInt(), anyLong())).thenAnswer(inv -> {
+            rows.lock(inv.getArgument(0, Long.class), inv.getArgument(1, Integer.class));
+            shards.merge(inv.getArgument(0) + ":" + inv.getArgument(1), inv.getArgument(2, Long.class), Long::sum);
+            return 1;
+        });
+        when(shardRepository.debit(anyLong(), anyInt(), anyLong())).thenAnswer(inv -> {
+            rows.lock(inv.getArgument(0, Long.class), inv.getArgument(1, Integer.class));
+            shards.merge(inv.getArgument(0) + ":" + inv.getArgument(1), -inv.getArgument(2, Long.class), Long::sum);
+            return 1;
+        });
+
+        ShardedBalanceServiceImpl shardedBalances = new ShardedBalanceServiceImpl(cardRepository, shardRepository);
+        service = new CardServiceImpl(cardRepository, userRepository, ledgerWriter, shardedBalances,
+                Mockito.mock(BalanceJournal.class), Mockito.mock(CardStats.class), Mockito.mock(CardViewCache.class), Mockito.mock(ReplicaPins.class));
+
+        for (Card card : List.of(from, to)) {
+            card.setBalanceShards(2);
+            card.setBalance(Money.ZERO);
+            shardedBalances.markSharded(card.getId());
+            shards.put(card.getId() + ":0", 6000L);
+            shards.put(card.getId() + ":1", 4000L);
+        }
+        when(cardRepository.findByIdForShare(anyLong())).thenAnswer(inv -> Optional.of(
+                inv.getArgument(0, Long.class).equals(from.getId()) ? from : to));
+
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        Future<?> forward = pool.submit(() -> {
+            try {
+                service.transfer(from.getId(), to.getId(), new BigDecimal("30.00"));
+            } finally {
+                rows.releaseAll();
+            }
+        });
+        Future<?> backward = pool.submit(() -> {
+            try {
+                service.transfer(to.getId(), from.getId(), new BigDecimal("20.00"));
+            } finally {
+                rows.releaseAll();
+            }
+        });
+
+        forward.get(10, TimeUnit.SECONDS);
+        backward.get(10, TimeUnit.SECONDS);
+        pool.shutdownNow();
+
+        assertEquals(9000L, shardSum(shards, from.getId()));
+        assertEquals(11000L, shardSum(shards, to.getId()));
+    }
+
     // ===== helpers =====
 
-    private static boolean eq(BigDecimal a, String b) {
-        return a.compareTo(new BigDecimal(b)) == 0;
+    private static long shardSum(Map<String, Long> shards, Long cardId) {
+        return shards.get(cardId + ":0") + shards.get(cardId + ":1");
+    }
+
+    private static boolean eq(Money a, String b) {
+        return a.equals(Money.of(b));
     }
 
     private static Card deepCopy(Card src) {
@@ -182,7 +300,7 @@ class CardServiceConcurrencyUnitTest {
         c.setNumber(src.getNumber());
         c.setStatus(src.getStatus());
         c.setExpiryDate(src.getExpiryDate());
-        c.setBalance(src.getBalance() == null ? null : new BigDecimal(src.getBalance().toPlainString()));
+        c.setBalance(src.getBalance());
         return c;
     }
 
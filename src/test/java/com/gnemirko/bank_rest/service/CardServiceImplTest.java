@@ -1,26 +1,49 @@
 // CardServiceImplTest.java
 package com.gnemirko.bank_rest.service;
 
+import com.gnemirko.bank_rest.config.ReplicaPins;
+import com.gnemirko.bank_rest.dto.CardResponse;
+import com.gnemirko.bank_rest.dto.CardRow;
+import com.gnemirko.bank_rest.dto.CardSeekPage;
+import com.gnemirko.bank_rest.dto.CardSliceResponse;
 import com.gnemirko.bank_rest.dto.CreateCardRequest;
 import com.gnemirko.bank_rest.entity.Card;
 import com.gnemirko.bank_rest.entity.CardStatus;
+import com.gnemirko.bank_rest.entity.Money;
+import com.gnemirko.bank_rest.entity.Transaction;
+import com.gnemirko.bank_rest.entity.TransactionStatus;
 import com.gnemirko.bank_rest.entity.User;
 import com.gnemirko.bank_rest.exception.ResourceNotFoundException;
 import com.gnemirko.bank_rest.repository.CardRepository;
 import com.gnemirko.bank_rest.repository.UserRepository;
+import com.gnemirko.bank_rest.util.IdCursor;
 import jakarta.persistence.EntityNotFoundException;
 import org.junit.jupiter.api.*;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.sql.Date;
 import java.time.LocalDate;
+import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 import static org.mockito.Mockito.lenient;
 
@@ -29,12 +52,18 @@ class CardServiceImplTest {
 
     @Mock CardRepository cardRepository;
     @Mock UserRepository userRepository;
+    @Mock LedgerWriter ledgerWriter;
+    @Mock ShardedBalanceService shardedBalances;
+    @Mock BalanceJournal balanceJournal;
+    @Mock CardStats cardStats;
+    @Mock CardViewCache cardViews;
+    @Mock ReplicaPins replicaPins;
 
     CardServiceImpl service;
 
     @BeforeEach
     void setUp() {
-        service = new CardServiceImpl(cardRepository, userRepository);
+        service = new CardServiceImpl(cardRepository, userRepository, ledgerWriter, shardedBalances, balanceJournal, cardStats, cardViews, replicaPins);
     }
 
     private static User user(Long id) {
@@ -51,7 +80,7 @@ class CardServiceImplTest {
         c.setNumber("411111111111" + String.format("%04d", id));
         c.setStatus(status);
         c.setExpiryDate(Date.valueOf(expiryMonth.withDayOfMonth(1)));
-        c.setBalance(balance);
+        c.setBalance(balance == null ? null : Money.of(balance));
         return c;
     }
 
@@ -73,8 +102,11 @@ class CardServiceImplTest {
 
             assertNotNull(saved);
             assertEquals(CardStatus.ACTIVE, saved.getStatus());
-            assertEquals(new BigDecimal("10.00"), saved.getBalance());
+            assertEquals(Money.of("10.00"), saved.getBalance());
+            assertEquals("1111", saved.getLast4());
             verify(cardRepository).save(any(Card.class));
+            verify(balanceJournal).record(saved.getId(), Money.of("10.00"));
+            verify(cardStats).cardAdded(saved.getId(), CardStatus.ACTIVE, new BigDecimal("10.00"));
         }
 
         @Test
@@ -91,11 +123,32 @@ class CardServiceImplTest {
         @Test
         void updateStatus_ok() {
             var existing = card(10L, user(1L), CardStatus.BLOCKED, new BigDecimal("0.00"), LocalDate.now().plusYears(1));
-            when(cardRepository.findById(10L)).thenReturn(Optional.of(existing));
+            when(cardRepository.findByIdForUpdate(10L)).thenReturn(Optional.of(existing));
             when(cardRepository.save(any(Card.class))).thenAnswer(inv -> inv.getArgument(0));
 
             Card updated = service.updateStatus(10L, CardStatus.ACTIVE);
             assertEquals(CardStatus.ACTIVE, updated.getStatus());
+            verify(cardStats).statusChanged(10L, CardStatus.BLOCKED, CardStatus.ACTIVE, new BigDecimal("0.00"));
+        }
+
+        @Test
+        void delete_removesCardFromStats() {
+            var existing = card(10L, user(1L), CardStatus.BLOCKED, new BigDecimal("7.00"), LocalDate.now().plusYears(1));
+            when(cardRepository.findByIdForUpdate(10L)).thenReturn(Optional.of(existing));
+
+            service.delete(10L);
+
+            verify(cardStats).cardRemoved(10L, CardStatus.BLOCKED, new BigDecimal("7.00"));
+            verify(cardRepository).delete(existing);
+            verify(cardViews).evict(1L, 10L);
+        }
+
+        @Test
+        void delete_missingCard_isNotFound() {
+            when(cardRepository.findByIdForUpdate(10L)).thenReturn(Optional.empty());
+
+            assertThrows(EntityNotFoundException.class, () -> service.delete(10L));
+            verifyNoInteractions(cardStats);
         }
 
         @Test
@@ -106,6 +159,20 @@ class CardServiceImplTest {
             assertThrows(IllegalArgumentException.class, () -> service.updateBalance(10L, new BigDecimal("-1.00")));
             verify(cardRepository, never()).save(any());
         }
+
+        @Test
+        void updateBalance_journalsDifference() {
+            var existing = card(10L, user(1L), CardStatus.ACTIVE, new BigDecimal("10.00"), LocalDate.now().plusYears(1));
+            when(cardRepository.findByIdForUpdate(10L)).thenReturn(Optional.of(existing));
+            when(cardRepository.save(any(Card.class))).thenAnswer(inv -> inv.getArgument(0));
+
+            service.updateBalance(10L, new BigDecimal("25.50"));
+
+            assertEquals(Money.of("25.50"), existing.getBalance());
+            verify(balanceJournal).record(10L, Money.of("15.50"));
+            verify(cardStats).balanceChanged(10L, CardStatus.ACTIVE, new BigDecimal("15.50"));
+            verify(cardViews).evict(1L, 10L);
+        }
     }
 
     @Nested
@@ -143,9 +210,11 @@ class CardServiceImplTest {
         void happyPath_transfersFunds_andSavesBoth() {
             stubFindCards(10L, 20L);
             service.transfer(10L, 20L, new BigDecimal("30.00"));
-            assertEquals(new BigDecimal("70.00"), from.getBalance());
-            assertEquals(new BigDecimal("80.00"), to.getBalance());
+            assertEquals(Money.of("70.00"), from.getBalance());
+            assertEquals(Money.of("80.00"), to.getBalance());
             verify(cardRepository, times(2)).save(any(Card.class));
+            verify(ledgerWriter).append(10L, 20L, Money.of("30.00"));
+            verify(cardViews).evict(from.getOwner().getId(), 10L, 20L);
         }
 
         @Test
@@ -153,6 +222,7 @@ class CardServiceImplTest {
             stubFindCards(10L, 20L);
             assertThrows(IllegalArgumentException.class,
                     () -> service.transfer(10L, 20L, new BigDecimal("150.00")));
+            verifyNoInteractions(ledgerWriter);
         }
 
         @Test
@@ -201,4 +271,406 @@ class CardServiceImplTest {
                     () -> service.transfer(10L, 20L, new BigDecimal("10.00")));
         }
     }
-}
\ No newline at end of file
+
+    @Nested
+    class Settle {
+
+        Card from, to;
+
+        @BeforeEach
+        void prepare() {
+            User owner = user(1L);
+            from = card(10L, owner, CardStatus.ACTIVE, new BigDecimal("100.00"), LocalDate.now().plusYears(1));
+            to = card(20L, owner, CardStatus.ACTIVE, new BigDecimal("0.00"), LocalDate.now().plusYears(1));
+        }
+
+        private Transaction entry(TransactionStatus status) {
+            return Transaction.builder().id(700L).fromCardId(10L).toCardId(20L)
+                    .amount(Money.of("30.00")).status(status).build();
+        }
+
+        @Test
+        void pendingEntry_movesFunds_andCompletesSameRow() {
+            Transaction pending = entry(TransactionStatus.PENDING);
+            when(ledgerWriter.lockEntry(700L)).thenReturn(Optional.of(pending));
+            when(cardRepository.findByIdForUpdate(10L)).thenReturn(Optional.of(from));
+            when(cardRepository.findByIdForUpdate(20L)).thenReturn(Optional.of(to));
+            when(ledgerWriter.complete(pending)).thenReturn(pending);
+
+            service.settle(700L);
+
+            assertEquals(Money.of("70.00"), from.getBalance());
+            assertEquals(Money.of("30.00"), to.getBalance());
+            verify(ledgerWriter).complete(pending);
+            verify(ledgerWriter, never()).append(any(), any(), any());
+            // проведение идёт в фоновом потоке без пользователя — владелец закрепляется явно
+            verify(replicaPins).pin(1L);
+        }
+
+        @Test
+        void alreadySettledEntry_isNotAppliedTwice() {
+            when(ledgerWriter.lockEntry(700L)).thenReturn(Optional.of(entry(TransactionStatus.COMPLETED)));
+
+            service.settle(700L);
+
+            verifyNoInteractions(cardRepository);
+            verify(ledgerWriter, never()).complete(any());
+        }
+    }
+
+    @Nested
+    class ConditionalTransfer {
+
+        @BeforeEach
+        void conditionalMode() {
+            ReflectionTestUtils.setField(service, "transferMode", TransferMode.CONDITIONAL);
+        }
+
+        @Test
+        void happyPath_twoGuardedUpdates_inIdOrder_noLocks() {
+            when(cardRepository.debitIfAllowed(10L, 1L, 3000L)).thenReturn(1);
+            when(cardRepository.creditIfAllowed(20L, 1L, 3000L)).thenReturn(1);
+
+            service.transfer(1L, 10L, 20L, new BigDecimal("30.00"));
+
+            var inOrder = inOrder(cardRepository);
+            inOrder.verify(cardRepository).debitIfAllowed(10L, 1L, 3000L);
+            inOrder.verify(cardRepository).creditIfAllowed(20L, 1L, 3000L);
+            verify(cardRepository, never()).findByIdForUpdate(any());
+            verify(cardRepository, never()).save(any());
+            verify(ledgerWriter).append(10L, 20L, Money.of("30.00"));
+        }
+
+        @Test
+        void higherSourceId_creditsFirst() {
+            when(cardRepository.creditIfAllowed(10L, 1L, 500L)).thenReturn(1);
+            when(cardRepository.debitIfAllowed(20L, 1L, 500L)).thenReturn(1);
+
+            service.transfer(1L, 20L, 10L, new BigDecimal("5.00"));
+
+            var inOrder = inOrder(cardRepository);
+            inOrder.verify(cardRepository).creditIfAllowed(10L, 1L, 500L);
+            inOrder.verify(cardRepository).debitIfAllowed(20L, 1L, 500L);
+        }
+
+        @Test
+        void debitRejected_insufficientFunds_diagnosed() {
+            var from = card(10L, user(1L), CardStatus.ACTIVE, new BigDecimal("10.00"), LocalDate.now().plusYears(1));
+            when(cardRepository.debitIfAllowed(10L, 1L, 3000L)).thenReturn(0);
+            when(cardRepository.findById(10L)).thenReturn(Optional.of(from));
+
+            var ex = assertThrows(IllegalArgumentException.class,
+                    () -> service.transfer(1L, 10L, 20L, new BigDecimal("30.00")));
+            assertEquals("Insufficient funds", ex.getMessage());
+            verify(cardRepository, never()).creditIfAllowed(any(), any(), anyLong());
+            verifyNoInteractions(ledgerWriter);
+        }
+
+        @Test
+        void creditRejected_blockedTarget_diagnosed() {
+            var to = card(20L, user(1L), CardStatus.BLOCKED, new BigDecimal("0.00"), LocalDate.now().plusYears(1));
+            when(cardRepository.debitIfAllowed(10L, 1L, 3000L)).thenReturn(1);
+            when(cardRepository.creditIfAllowed(20L, 1L, 3000L)).thenReturn(0);
+            when(cardRepository.findById(20L)).thenReturn(Optional.of(to));
+
+            var ex = assertThrows(IllegalArgumentException.class,
+                    () -> service.transfer(1L, 10L, 20L, new BigDecimal("30.00")));
+            assertEquals("Card is blocked", ex.getMessage());
+        }
+
+        @Test
+        void foreignCard_forbidden() {
+            var alien = card(10L, user(2L), CardStatus.ACTIVE, new BigDecimal("100.00"), LocalDate.now().plusYears(1));
+            when(cardRepository.debitIfAllowed(10L, 1L, 3000L)).thenReturn(0);
+            when(cardRepository.findById(10L)).thenReturn(Optional.of(alien));
+
+            assertThrows(AccessDeniedException.class,
+                    () -> service.transfer(1L, 10L, 20L, new BigDecimal("30.00")));
+        }
+    }
+
+    @Nested
+    class BatchTransfer {
+
+        Card a, b, c;
+
+        @BeforeEach
+        void prepare() {
+            User owner = user(1L);
+            a = card(10L, owner, CardStatus.ACTIVE, new BigDecimal("100.00"), LocalDate.now().plusYears(1));
+            b = card(20L, owner, CardStatus.ACTIVE, new BigDecimal("0.00"), LocalDate.now().plusYears(1));
+            c = card(30L, owner, CardStatus.ACTIVE, new BigDecimal("0.00"), LocalDate.now().plusYears(1));
+            when(cardRepository.findAllByIdForUpdate(any())).thenReturn(List.of(a, b, c));
+        }
+
+        @Test
+        void locksAllCardsOnce_inAscendingOrder_andAppendsLedgerOnce() {
+            var outcomes = service.transferBatch(List.of(
+                    // каждая позиция покрыта балансом после предыдущих: 30 пополняется позицией 1
+                    new TransferCommand(1L, 10L, 20L, new BigDecimal("40.00")),
+                    new TransferCommand(1L, 20L, 30L, new BigDecimal("15.00")),
+                    new TransferCommand(1L, 30L, 10L, new BigDecimal("1.00"))
+            ), BatchMode.ALL_OR_NOTHING);
+
+            assertTrue(outcomes.stream().allMatch(TransferOutcome::succeeded));
+            assertEquals(Money.of("61.00"), a.getBalance());
+            assertEquals(Money.of("25.00"), b.getBalance());
+            assertEquals(Money.of("14.00"), c.getBalance());
+            verify(cardRepository).findAllByIdForUpdate(argThat(ids -> List.copyOf(ids).equals(List.of(10L, 20L, 30L))));
+            verify(cardRepository, never()).findByIdForUpdate(any());
+            verify(cardRepository, never()).save(any());
+            verify(ledgerWriter).appendAll(argThat(entries -> entries.size() == 3));
+            verify(replicaPins, atLeastOnce()).pin(1L);
+        }
+
+        @Test
+        void bestEffort_skipsFailedItem_keepsOthers() {
+            // позиция 0 не проходит: карта 20 пополняется только позицией 1
+            var outcomes = service.transferBatch(List.of(
+                    new TransferCommand(1L, 20L, 30L, new BigDecimal("5.00")),
+                    new TransferCommand(1L, 10L, 20L, new BigDecimal("60.00")),
+                    new TransferCommand(1L, 10L, 30L, new BigDecimal("60.00"))
+            ), BatchMode.BEST_EFFORT);
+
+            assertFalse(outcomes.get(0).succeeded());
+            assertEquals("Insufficient funds", outcomes.get(0).error());
+            assertTrue(outcomes.get(1).succeeded());
+            assertFalse(outcomes.get(2).succeeded());
+            assertEquals(Money.of("40.00"), a.getBalance());
+            assertEquals(Money.of("60.00"), b.getBalance());
+            assertEquals(Money.of("0.00"), c.getBalance());
+            verify(ledgerWriter).appendAll(argThat(entries -> entries.size() == 1));
+        }
+
+        @Test
+        void bestEffort_creditOverflow_leavesSenderUntouched() {
+            c.setBalance(Money.ofMinor(Long.MAX_VALUE));
+
+            var outcomes = service.transferBatch(List.of(
+                    new TransferCommand(1L, 10L, 30L, new BigDecimal("1.00")),
+                    new TransferCommand(1L, 10L, 20L, new BigDecimal("5.00"))
+            ), BatchMode.BEST_EFFORT);
+
+            assertFalse(outcomes.get(0).succeeded());
+            assertEquals("Amount overflow", outcomes.get(0).error());
+            assertTrue(outcomes.get(1).succeeded());
+            assertEquals(Money.of("95.00"), a.getBalance());
+            assertEquals(Money.of("5.00"), b.getBalance());
+            assertEquals(Money.ofMinor(Long.MAX_VALUE), c.getBalance());
+            verify(ledgerWriter).appendAll(argThat(entries -> entries.size() == 1));
+        }
+
+        @Test
+        void bestEffort_creditOverflow_doesNotDebitShards() {
+            a.setBalanceShards(2);
+            a.setShardedBalance(new BigDecimal("100.00"));
+            c.setBalance(Money.ofMinor(Long.MAX_VALUE));
+
+            var outcomes = service.transferBatch(List.of(
+                    new TransferCommand(1L, 10L, 30L, new BigDecimal("1.00"))
+            ), BatchMode.BEST_EFFORT);
+
+            assertEquals("Amount overflow", outcomes.get(0).error());
+            verify(shardedBalances, never()).debit(any(), any());
+            verify(ledgerWriter).appendAll(argThat(List::isEmpty));
+        }
+
+        @Test
+        void allOrNothing_failsWithItemIndex() {
+            var ex = assertThrows(IllegalArgumentException.class, () -> service.transferBatch(List.of(
+                    new TransferCommand(1L, 10L, 20L, new BigDecimal("60.00")),
+                    new TransferCommand(1L, 10L, 30L, new BigDecimal("60.00"))
+            ), BatchMode.ALL_OR_NOTHING));
+
+            assertEquals("Batch item 1: Insufficient funds", ex.getMessage());
+            verifyNoInteractions(ledgerWriter);
+        }
+    }
+
+    @Nested
+    class ShardedTransfer {
+
+        Card from, hot;
+
+        @BeforeEach
+        void prepare() {
+            User owner = user(1L);
+            from = card(10L, owner, CardStatus.ACTIVE, new BigDecimal("100.00"), LocalDate.now().plusYears(1));
+            hot = card(20L, owner, CardStatus.ACTIVE, BigDecimal.ZERO, LocalDate.now().plusYears(1));
+            hot.setBalanceShards(4);
+            lenient().when(cardRepository.save(any(Card.class))).thenAnswer(inv -> inv.getArgument(0));
+        }
+
+        @Test
+        void creditToShardedCard_takesRowForShare_andCreditsShard() {
+            lenient().when(shardedBalances.isSharded(20L)).thenReturn(true);
+            when(cardRepository.findByIdForUpdate(10L)).thenReturn(Optional.of(from));
+            when(cardRepository.findByIdForShare(20L)).thenReturn(Optional.of(hot));
+
+            service.transfer(10L, 20L, new BigDecimal("30.00"));
+
+            assertEquals(Money.of("70.00"), from.getBalance());
+            verify(shardedBalances).credit(hot, Money.of("30.00"));
+            verify(cardRepository, never()).findByIdForUpdate(20L);
+            verify(ledgerWriter).append(10L, 20L, Money.of("30.00"));
+        }
+
+        @Test
+        void debitFromShardedCard_insufficient_leavesTargetUntouched() {
+            lenient().when(shardedBalances.isSharded(20L)).thenReturn(true);
+            when(cardRepository.findByIdForUpdate(10L)).thenReturn(Optional.of(from));
+            when(cardRepository.findByIdForShare(20L)).thenReturn(Optional.of(hot));
+            doThrow(new IllegalArgumentException("Insufficient funds"))
+                    .when(shardedBalances).debit(hot, Money.of("5.00"));
+
+            assertThrows(IllegalArgumentException.class, () -> service.transfer(20L, 10L, new BigDecimal("5.00")));
+
+            assertEquals(Money.of("100.00"), from.getBalance());
+            verifyNoInteractions(ledgerWriter);
+        }
+
+        @Test
+        void conditionalMode_fallsBackToLocking_forShardedCard() {
+            ReflectionTestUtils.setField(service, "transferMode", TransferMode.CONDITIONAL);
+            lenient().when(shardedBalances.isSharded(20L)).thenReturn(true);
+            when(cardRepository.findByIdForUpdate(10L)).thenReturn(Optional.of(from));
+            when(cardRepository.findByIdForShare(20L)).thenReturn(Optional.of(hot));
+
+            service.transfer(1L, 10L, 20L, new BigDecimal("1.00"));
+
+            verify(cardRepository, never()).debitIfAllowed(any(), any(), anyLong());
+            verify(shardedBalances).credit(hot, Money.of("1.00"));
+        }
+
+        @Test
+        void updateBalance_resetsShards() {
+            when(cardRepository.findByIdForUpdate(20L)).thenReturn(Optional.of(hot));
+            when(shardedBalances.reset(hot, Money.of("500.00"))).thenReturn(Money.of("120.00"));
+
+            service.updateBalance(20L, new BigDecimal("500.00"));
+
+            assertEquals(Money.ZERO, hot.getBalance());
+            verify(balanceJournal).record(20L, Money.of("380.00"));
+        }
+    }
+
+    @Nested
+    class Listing {
+
+        private CardRow row(Long id) {
+            return new CardRow(id, "411111111111" + String.format("%04d", id),
+                    Date.valueOf(LocalDate.now().plusYears(1).withDayOfMonth(1)), CardStatus.ACTIVE,
+                    Money.of("1.00"), null, 1L, null, "user-1", true);
+        }
+
+        @Test
+        @SuppressWarnings("unchecked")
+        void seekAll_returnsCursorOfLastRow_whenMoreRowsExist() {
+            when(cardRepository.findRows(any(Specification.class), eq(Sort.by("id")), eq(3)))
+                    .thenReturn(List.of(row(11L), row(12L), row(13L)));
+
+            CardSeekPage page = service.seekAll(null, CardStatus.ACTIVE, null, 10L, 2);
+
+            assertEquals(List.of(11L, 12L), page.items().stream().map(CardResponse::id).toList());
+            assertEquals(12L, IdCursor.decode(page.nextCursor()));
+            verify(cardRepository, never()).count(any(Specification.class));
+        }
+
+        @Test
+        @SuppressWarnings("unchecked")
+        void seekAll_lastPage_hasNoCursor() {
+            when(cardRepository.findRows(any(Specification.class), any(Sort.class), anyInt())).thenReturn(List.of(row(11L)));
+
+            CardSeekPage page = service.seekAll(null, null, null, null, 2);
+
+            assertEquals(1, page.items().size());
+            assertEquals("**** **** **** 0011", page.items().getFirst().maskedNumber());
+            assertNull(page.nextCursor());
+        }
+
+        private Slice<CardRow> slice(int page, int size, boolean hasNext, Long... ids) {
+            List<CardRow> rows = java.util.Arrays.stream(ids).map(this::row).toList();
+            return new SliceImpl<>(rows, PageRequest.of(page, size), hasNext);
+        }
+
+        @Test
+        @SuppressWarnings("unchecked")
+        void listOwned_countNone_neverCounts() {
+            when(cardRepository.findRowSlice(any(Specification.class), any(Pageable.class))).thenReturn(slice(0, 2, true, 11L, 12L));
+
+            CardSliceResponse res = service.listOwned(1L, null, null, PageRequest.of(0, 2), CountMode.NONE).view();
+
+            assertTrue(res.hasNext());
+            assertNull(res.totalElements());
+            verify(cardRepository, never()).count(any(Specification.class));
+            verify(cardRepository, never()).estimateOwnedCount(any(), any(), any());
+        }
+
+        @Test
+        @SuppressWarnings("unchecked")
+        void listOwned_countEstimated_usesPlannerEstimate() {
+            when(cardRepository.findRowSlice(any(Specification.class), any(Pageable.class))).thenReturn(slice(0, 2, true, 11L, 12L));
+            when(cardRepository.estimateOwnedCount(1L, CardStatus.ACTIVE, null)).thenReturn(40L);
+
+            CardSliceResponse res = service.listOwned(1L, CardStatus.ACTIVE, null, PageRequest.of(0, 2), CountMode.ESTIMATED).view();
+
+            assertEquals(40L, res.totalElements());
+            assertTrue(res.totalEstimated());
+            verify(cardRepository, never()).count(any(Specification.class));
+        }
+
+        @Test
+        @SuppressWarnings("unchecked")
+        void listOwned_lastPage_knowsExactTotalWithoutCount() {
+            when(cardRepository.findRowSlice(any(Specification.class), any(Pageable.class))).thenReturn(slice(3, 2, false, 17L));
+
+            CardSliceResponse res = service.listOwned(1L, null, null, PageRequest.of(3, 2), CountMode.EXACT).view();
+
+            assertEquals(7L, res.totalElements());
+            assertFalse(res.totalEstimated());
+            verify(cardRepository, never()).count(any(Specification.class));
+        }
+
+        @Test
+        @SuppressWarnings("unchecked")
+        void listOwned_countExact_countsWhenMorePagesFollow() {
+            when(cardRepository.findRowSlice(any(Specification.class), any(Pageable.class))).thenReturn(slice(0, 2, true, 11L, 12L));
+            when(cardRepository.count(any(Specification.class))).thenReturn(9L);
+
+            CardSliceResponse res = service.listOwned(1L, null, null, PageRequest.of(0, 2), CountMode.EXACT).view();
+
+            assertEquals(9L, res.totalElements());
+            assertFalse(res.totalEstimated());
+        }
+
+        @Test
+        void getOwned_tagIsReadInTheSameSnapshotAsTheCard() throws Exception {
+            when(cardRepository.findById(11L)).thenReturn(Optional.of(
+                    card(11L, user(1L), CardStatus.ACTIVE, new BigDecimal("1.00"), LocalDate.now().plusYears(1))));
+            when(cardRepository.ownedCardTag(1L, 11L)).thenReturn(Optional.of("t1"));
+
+            TaggedView<CardResponse> res = service.getOwned(1L, 11L);
+
+            assertEquals(11L, res.view().id());
+            assertEquals("t1", res.tag());
+            Transactional tx = CardServiceImpl.class.getMethod("getOwned", Long.class, Long.class)
+                    .getAnnotation(Transactional.class);
+            assertEquals(Isolation.REPEATABLE_READ, tx.isolation());
+        }
+
+        @Test
+        void getOwned_foreignCard_isForbidden() {
+            when(cardRepository.findById(11L)).thenReturn(Optional.of(
+                    card(11L, user(2L), CardStatus.ACTIVE, new BigDecimal("1.00"), LocalDate.now().plusYears(1))));
+
+            assertThrows(AccessDeniedException.class, () -> service.getOwned(1L, 11L));
+        }
+
+        @Test
+        void getOwned_missingCard_isNotFound() {
+            when(cardRepository.findById(11L)).thenReturn(Optional.empty());
+
+            assertThrows(ResourceNotFoundException.class, () -> service.getOwned(1L, 11L));
+        }
+    }
+}
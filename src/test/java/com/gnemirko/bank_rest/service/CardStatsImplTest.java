@@ -0,0 +1,102 @@
+package com.gnemirko.bank_rest.service;
+
+import com.gnemirko.bank_rest.dto.CardStatsResponse;
+import com.gnemirko.bank_rest.entity.CardStatus;
+import com.gnemirko.bank_rest.repository.CardStatsRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CardStatsImplTest {
+
+    @Mock CardStatsRepository statsRepository;
+    @Mock PlatformTransactionManager transactionManager;
+
+    CardStatsImpl stats;
+
+    @BeforeEach
+    void setUp() {
+        stats = new CardStatsImpl(statsRepository, transactionManager, 16);
+    }
+
+    @Test
+    void cardAdded_incrementsSlotOfCard() {
+        stats.cardAdded(35L, CardStatus.ACTIVE, new BigDecimal("10.00"));
+
+        verify(statsRepository).add("ACTIVE", 3, 1, new BigDecimal("10.00"));
+    }
+
+    @Test
+    void cardRemoved_decrementsCountAndBalance() {
+        stats.cardRemoved(16L, CardStatus.BLOCKED, new BigDecimal("4.00"));
+
+        verify(statsRepository).add("BLOCKED", 0, -1, new BigDecimal("-4.00"));
+    }
+
+    @Test
+    void zeroBalanceChange_touchesNothing() {
+        stats.balanceChanged(1L, CardStatus.ACTIVE, BigDecimal.ZERO);
+        stats.statusChanged(1L, CardStatus.ACTIVE, CardStatus.ACTIVE, BigDecimal.TEN);
+
+        verifyNoInteractions(statsRepository);
+    }
+
+    @Test
+    void statusChanged_movesCardAndBalance_inStatusOrder() {
+        stats.statusChanged(2L, CardStatus.BLOCKED, CardStatus.ACTIVE, new BigDecimal("5.00"));
+
+        InOrder order = inOrder(statsRepository);
+        order.verify(statsRepository).add("ACTIVE", 2, 1, new BigDecimal("5.00"));
+        order.verify(statsRepository).add("BLOCKED", 2, -1, new BigDecimal("-5.00"));
+    }
+
+    @Test
+    void snapshot_listsEveryStatus_andTotals() {
+        when(statsRepository.totals()).thenReturn(List.<Object[]>of(
+                new Object[]{"ACTIVE", new BigDecimal("3"), new BigDecimal("30.00")},
+                new Object[]{"BLOCKED", new BigDecimal("1"), new BigDecimal("2.50")}));
+
+        CardStatsResponse response = stats.snapshot();
+
+        assertEquals(CardStatus.values().length, response.byStatus().size());
+        assertEquals(4, response.totalCards());
+        assertEquals(new BigDecimal("32.50"), response.totalBalance());
+    }
+
+    @Test
+    void reconcile_writesOnlyTheDrift() {
+        when(statsRepository.tryLock(anyLong())).thenReturn(true);
+        when(statsRepository.aggregate()).thenReturn(List.<Object[]>of(
+                new Object[]{"ACTIVE", 5L, new BigDecimal("50.00")},
+                new Object[]{"BLOCKED", 1L, new BigDecimal("1.00")}));
+        when(statsRepository.totals()).thenReturn(List.<Object[]>of(
+                new Object[]{"ACTIVE", new BigDecimal("4"), new BigDecimal("45.00")},
+                new Object[]{"BLOCKED", new BigDecimal("1"), new BigDecimal("1.00")}));
+
+        assertEquals(1, stats.reconcile());
+
+        verify(statsRepository).add("ACTIVE", 0, 1, new BigDecimal("5.00"));
+        verify(statsRepository, never()).add(eq("BLOCKED"), anyInt(), anyLong(), any());
+    }
+
+    @Test
+    void reconcile_skipsWhenAnotherNodeHoldsTheLock() {
+        when(statsRepository.tryLock(anyLong())).thenReturn(false);
+
+        assertEquals(0, stats.reconcile());
+
+        verify(statsRepository, never()).aggregate();
+    }
+}
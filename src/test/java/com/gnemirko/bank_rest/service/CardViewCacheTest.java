@@ -0,0 +1,174 @@
+package com.gnemirko.bank_rest.service;
+
+import com.gnemirko.bank_rest.dto.CardResponse;
+import com.gnemirko.bank_rest.dto.CardSliceResponse;
+import com.gnemirko.bank_rest.entity.Role;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CardViewCacheTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private CardViewCache cache;
+
+    /** Закоммиченный баланс карты 10 — то, что вернёт чтение из БД. */
+    private final AtomicReference<String> committed = new AtomicReference<>("10.00");
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        cache = new CardViewCache(registry, Duration.ofMinutes(5), 1000, 4, Duration.ZERO);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    /** Отпечаток в тестах — сам баланс: меняется вместе с ним. */
+    private static TaggedView<CardResponse> card(long ownerId, String balance) {
+        return new TaggedView<>(new CardResponse(10L, "**** **** **** 0010",
+                new CardResponse.Owner(ownerId, Role.ROLE_USER, "owner", true),
+                null, "ACTIVE", new BigDecimal(balance)), balance);
+    }
+
+    /** Чтение, как в контроллере: текущий отпечаток из БД, затем карта из кэша или загрузкой. */
+    private CardResponse read() {
+        return cache.ownedCard(1L, 10L, committed.get(), () -> {
+            loads.incrementAndGet();
+            return card(1L, committed.get());
+        }).view();
+    }
+
+    private static void commit() {
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        TransactionSynchronizationUtils.invokeAfterCompletion(synchronizations, TransactionSynchronization.STATUS_COMMITTED);
+    }
+
+    @Test
+    void repeatedReads_areServedFromCache_andCounted() {
+        read();
+        read();
+
+        assertEquals(1, loads.get());
+        assertEquals(1.0, registry.get("cache.gets").tags("cache", "cards.byId", "result", "hit").functionCounter().count());
+        assertEquals(1.0, registry.get("cache.gets").tags("cache", "cards.byId", "result", "miss").functionCounter().count());
+    }
+
+    @Test
+    void readYourWrites_afterCommittedBalanceChange() {
+        assertEquals(new BigDecimal("10.00"), read().balance());
+
+        // транзакция записи: инвалидация при изменении, новое значение видно только после коммита
+        TransactionSynchronizationManager.initSynchronization();
+        cache.evict(1L, 10L);
+        assertEquals(new BigDecimal("10.00"), read().balance(), "before commit the old balance is still the committed one");
+        committed.set("25.00");
+        commit();
+
+        assertEquals(new BigDecimal("25.00"), read().balance());
+        assertEquals(new BigDecimal("25.00"), read().balance());
+    }
+
+    @Test
+    void loadOverlappingCommit_isNotCached() {
+        // чтение загрузило старый баланс, а запись закоммитилась раньше, чем оно успело положить его в кэш
+        TaggedView<CardResponse> stale = cache.ownedCard(1L, 10L, "10.00", () -> {
+            TaggedView<CardResponse> old = card(1L, committed.get());
+            committed.set("25.00");
+            cache.evict(1L, 10L);
+            return old;
+        });
+        assertEquals(new BigDecimal("10.00"), stale.view().balance());
+
+        assertEquals(new BigDecimal("25.00"), read().balance());
+    }
+
+    @Test
+    void loadInterleavedWithWrite_staleEntryIsNotServedAfterCommit() {
+        // запись сбросила кэш внутри транзакции; чтение до её коммита загружает и кэширует старый баланс
+        cache.evict(1L, 10L);
+        assertEquals(new BigDecimal("10.00"), read().balance());
+        assertEquals(1, loads.get());
+
+        // коммит, инвалидация после которого до этого узла не дошла (запись шла на другом узле)
+        committed.set("25.00");
+
+        TaggedView<CardResponse> served = cache.ownedCard(1L, 10L, committed.get(), () -> {
+            loads.incrementAndGet();
+            return card(1L, committed.get());
+        });
+        assertEquals(new BigDecimal("25.00"), served.view().balance());
+        assertEquals("25.00", served.tag(), "ETag is taken from the body actually served");
+        assertEquals(2, loads.get());
+        assertEquals(new BigDecimal("25.00"), read().balance());
+        assertEquals(2, loads.get(), "the reloaded entry replaces the stale one");
+    }
+
+    @Test
+    void listPage_withOutdatedTag_isReloaded() {
+        AtomicInteger listLoads = new AtomicInteger();
+        TaggedView<CardSliceResponse> old = new TaggedView<>(
+                new CardSliceResponse(List.of(card(1L, "10.00").view()), 0, 20, false, null, false), "p1");
+        TaggedView<CardSliceResponse> fresh = new TaggedView<>(
+                new CardSliceResponse(List.of(card(1L, "25.00").view()), 0, 20, false, null, false), "p2");
+
+        cache.ownedCards(1L, "q", "p1", () -> { listLoads.incrementAndGet(); return old; });
+        TaggedView<CardSliceResponse> served = cache.ownedCards(1L, "q", "p2", () -> { listLoads.incrementAndGet(); return fresh; });
+
+        assertSame(fresh, served);
+        assertEquals(2, listLoads.get());
+    }
+
+    @Test
+    void foreignCard_isForbidden_evenFromCache() {
+        read();
+
+        assertThrows(AccessDeniedException.class, () -> cache.ownedCard(2L, 10L, "10.00", () -> card(1L, "10.00")));
+    }
+
+    @Test
+    void cardChange_dropsOwnersListPages() {
+        AtomicInteger listLoads = new AtomicInteger();
+        TaggedView<CardSliceResponse> page = new TaggedView<>(
+                new CardSliceResponse(List.of(card(1L, "10.00").view()), 0, 20, false, null, false), "p1");
+
+        cache.ownedCards(1L, "q", "p1", () -> { listLoads.incrementAndGet(); return page; });
+        cache.ownedCards(1L, "q", "p1", () -> { listLoads.incrementAndGet(); return page; });
+        assertEquals(1, listLoads.get());
+
+        cache.evict(1L, 10L);
+        cache.ownedCards(1L, "q", "p1", () -> { listLoads.incrementAndGet(); return page; });
+        assertEquals(2, listLoads.get());
+    }
+
+    @Test
+    void settleWindow_keepsFreshlyWrittenKeysOutOfCache() {
+        cache = new CardViewCache(new SimpleMeterRegistry(), Duration.ofMinutes(5), 1000, 4, Duration.ofHours(1));
+        read();
+        read();
+        assertEquals(1, loads.get());
+
+        cache.evict(1L, 10L);
+        read();
+        read();
+        assertEquals(3, loads.get());
+    }
+}
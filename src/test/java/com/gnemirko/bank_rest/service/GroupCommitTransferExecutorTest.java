@@ -0,0 +1,129 @@
+package com.gnemirko.bank_rest.service;
+
+import com.gnemirko.bank_rest.entity.Money;
+import com.gnemirko.bank_rest.entity.Transaction;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.security.access.AccessDeniedException;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class GroupCommitTransferExecutorTest {
+
+    private static final BigDecimal AMOUNT = new BigDecimal("5.00");
+
+    @Mock CardService cardService;
+
+    GroupCommitTransferExecutor executor;
+
+    /** Окно длинное — пачка закрывается по {@code maxBatch}, тест не зависит от таймингов. */
+    private GroupCommitTransferExecutor start(boolean enabled, int maxBatch) {
+        executor = new GroupCommitTransferExecutor(cardService, enabled, Duration.ofSeconds(5), maxBatch, 1, 100);
+        executor.start();
+        return executor;
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        if (executor != null) executor.shutdown();
+    }
+
+    private static Transaction tx(long id, long from, long to) {
+        return Transaction.builder().id(id).fromCardId(from).toCardId(to).amount(Money.of(AMOUNT)).build();
+    }
+
+    @Test
+    void disabled_transfersDirectly() {
+        start(false, 8);
+        when(cardService.transfer(1L, 10L, 20L, AMOUNT)).thenReturn(tx(1, 10, 20));
+
+        assertEquals(1L, executor.transfer(1L, 10L, 20L, AMOUNT).getId());
+        verify(cardService, never()).transferBatch(any(), any());
+    }
+
+    @Test
+    void concurrentTransfers_areCommittedAsOneBatch() {
+        start(true, 3);
+        when(cardService.transferBatch(any(), eq(BatchMode.BEST_EFFORT))).thenAnswer(inv -> {
+            List<TransferCommand> cmds = inv.getArgument(0);
+            return List.of(
+                    TransferOutcome.ok(0, tx(100, cmds.get(0).fromCardId(), cmds.get(0).toCardId())),
+                    TransferOutcome.ok(1, tx(101, cmds.get(1).fromCardId(), cmds.get(1).toCardId())),
+                    TransferOutcome.ok(2, tx(102, cmds.get(2).fromCardId(), cmds.get(2).toCardId())));
+        });
+
+        CompletableFuture<Transaction> a = executor.submit(1L, 10L, 20L, AMOUNT);
+        CompletableFuture<Transaction> b = executor.submit(1L, 20L, 30L, AMOUNT);
+        CompletableFuture<Transaction> c = executor.submit(1L, 30L, 10L, AMOUNT);
+
+        assertEquals(10L, a.orTimeout(5, TimeUnit.SECONDS).join().getFromCardId());
+        assertEquals(20L, b.join().getFromCardId());
+        assertEquals(30L, c.join().getFromCardId());
+        verify(cardService, times(1)).transferBatch(argThat(l -> l.size() == 3), eq(BatchMode.BEST_EFFORT));
+        verify(cardService, never()).transfer(any(), any(), any(), any());
+    }
+
+    @Test
+    void rejectedItem_failsOnlyItsCaller_withOriginalException() {
+        start(true, 2);
+        when(cardService.transferBatch(any(), eq(BatchMode.BEST_EFFORT))).thenReturn(List.of(
+                TransferOutcome.ok(0, tx(100, 10, 20)),
+                TransferOutcome.failed(1, new AccessDeniedException("Forbidden"))));
+
+        CompletableFuture<Transaction> ok = executor.submit(1L, 10L, 20L, AMOUNT);
+        CompletableFuture<Transaction> denied = executor.submit(1L, 30L, 40L, AMOUNT);
+
+        assertEquals(100L, ok.orTimeout(5, TimeUnit.SECONDS).join().getId());
+        var ex = assertThrows(CompletionException.class, denied::join);
+        assertInstanceOf(AccessDeniedException.class, ex.getCause());
+    }
+
+    @Test
+    void rolledBackBatch_fallsBackToSingleTransfers() {
+        start(true, 2);
+        when(cardService.transferBatch(any(), any())).thenThrow(new CannotAcquireLockException("deadlock"));
+        when(cardService.transfer(1L, 10L, 20L, AMOUNT)).thenReturn(tx(200, 10, 20));
+        when(cardService.transfer(1L, 30L, 40L, AMOUNT)).thenThrow(new IllegalArgumentException("Insufficient funds"));
+
+        CompletableFuture<Transaction> ok = executor.submit(1L, 10L, 20L, AMOUNT);
+        CompletableFuture<Transaction> failed = executor.submit(1L, 30L, 40L, AMOUNT);
+
+        assertEquals(200L, ok.orTimeout(5, TimeUnit.SECONDS).join().getId());
+        var ex = assertThrows(CompletionException.class, failed::join);
+        assertEquals("Insufficient funds", ex.getCause().getMessage());
+    }
+
+    @Test
+    void transfer_rethrowsCauseUnwrapped() {
+        start(true, 1);
+        when(cardService.transferBatch(any(), any())).thenReturn(List.of(
+                TransferOutcome.failed(0, new IllegalArgumentException("Card is blocked"))));
+
+        var ex = assertThrows(IllegalArgumentException.class, () -> executor.transfer(1L, 10L, 20L, AMOUNT));
+        assertEquals("Card is blocked", ex.getMessage());
+    }
+
+    @Test
+    void invalidTransfer_isRejectedBeforeQueueing() {
+        start(true, 4);
+
+        assertThrows(IllegalArgumentException.class, () -> executor.submit(1L, 10L, 10L, AMOUNT));
+        assertThrows(IllegalArgumentException.class, () -> executor.submit(1L, 10L, 20L, BigDecimal.ZERO));
+        verifyNoInteractions(cardService);
+    }
+}
@@ -0,0 +1,127 @@
+package com.gnemirko.bank_rest.service;
+
+import com.gnemirko.bank_rest.dto.TransferResponse;
+import com.gnemirko.bank_rest.entity.IdempotencyRecord;
+import com.gnemirko.bank_rest.entity.Money;
+import com.gnemirko.bank_rest.entity.Transaction;
+import com.gnemirko.bank_rest.entity.TransactionStatus;
+import com.gnemirko.bank_rest.repository.IdempotencyRecordRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class IdempotentTransferServiceImplTest {
+
+    @Mock CardService cardService;
+    @Mock GroupCommitTransferExecutor groupCommit;
+    @Mock IdempotencyRecordRepository recordRepository;
+    @Mock PlatformTransactionManager transactionManager;
+
+    IdempotentTransferServiceImpl service;
+
+    @BeforeEach
+    void setUp() {
+        service = new IdempotentTransferServiceImpl(cardService, groupCommit, recordRepository, transactionManager, Duration.ofHours(24), 100);
+    }
+
+    private static Transaction tx(long id) {
+        return Transaction.builder()
+                .id(id).fromCardId(10L).toCardId(20L)
+                .amount(Money.of("30.00"))
+                .status(TransactionStatus.COMPLETED)
+                .createdAt(Instant.now())
+                .build();
+    }
+
+    @Test
+    void withoutKey_goesThroughGroupCommit_andRecordsNothing() {
+        when(groupCommit.transfer(1L, 10L, 20L, new BigDecimal("30.00"))).thenReturn(tx(501L));
+
+        TransferResponse res = service.transfer(1L, null, 10L, 20L, new BigDecimal("30.00"));
+
+        assertEquals(501L, res.transactionId());
+        verifyNoInteractions(recordRepository, cardService);
+    }
+
+    @Test
+    void firstCall_transfersAndRecordsKey() {
+        when(cardService.transfer(1L, 10L, 20L, new BigDecimal("30.00"))).thenReturn(tx(500L));
+
+        TransferResponse res = service.transfer(1L, "k-1", 10L, 20L, new BigDecimal("30.00"));
+
+        assertEquals(500L, res.transactionId());
+        verify(recordRepository).saveAndFlush(argThat(r -> r.getId().equals("1:k-1") && r.getTransactionId() == 500L));
+    }
+
+    @Test
+    void hotReplay_servedFromMemory_withoutTransferOrDb() {
+        when(cardService.transfer(1L, 10L, 20L, new BigDecimal("30.00"))).thenReturn(tx(500L));
+        service.transfer(1L, "k-1", 10L, 20L, new BigDecimal("30.00"));
+
+        TransferResponse replay = service.transfer(1L, "k-1", 10L, 20L, new BigDecimal("30.0"));
+
+        assertEquals(500L, replay.transactionId());
+        verify(cardService, times(1)).transfer(any(), any(), any(), any());
+        verify(recordRepository, times(1)).findLive(any(), any());
+    }
+
+    @Test
+    void coldReplay_readsStoredRecord() {
+        IdempotencyRecord stored = IdempotencyRecord.builder()
+                .id("1:k-2").userId(1L).transactionId(700L).createdAt(Instant.now())
+                .requestHash(hashOf(10L, 20L, "30.00"))
+                .build();
+        when(recordRepository.findLive(eq("1:k-2"), any())).thenReturn(Optional.of(stored));
+
+        TransferResponse replay = service.transfer(1L, "k-2", 10L, 20L, new BigDecimal("30.00"));
+
+        assertEquals(700L, replay.transactionId());
+        verifyNoInteractions(cardService);
+    }
+
+    @Test
+    void sameKeyDifferentPayload_rejected() {
+        when(cardService.transfer(1L, 10L, 20L, new BigDecimal("30.00"))).thenReturn(tx(500L));
+        service.transfer(1L, "k-1", 10L, 20L, new BigDecimal("30.00"));
+
+        assertThrows(IllegalArgumentException.class,
+                () -> service.transfer(1L, "k-1", 10L, 20L, new BigDecimal("31.00")));
+    }
+
+    @Test
+    void concurrentDuplicate_returnsWinnerResult() {
+        when(cardService.transfer(1L, 10L, 20L, new BigDecimal("30.00"))).thenReturn(tx(501L));
+        when(recordRepository.saveAndFlush(any())).thenThrow(new DataIntegrityViolationException("duplicate key"));
+        IdempotencyRecord winner = IdempotencyRecord.builder()
+                .id("1:k-3").userId(1L).transactionId(500L).createdAt(Instant.now())
+                .requestHash(hashOf(10L, 20L, "30.00"))
+                .build();
+        when(recordRepository.findLive(eq("1:k-3"), any())).thenReturn(Optional.empty(), Optional.of(winner));
+
+        TransferResponse res = service.transfer(1L, "k-3", 10L, 20L, new BigDecimal("30.00"));
+
+        assertEquals(500L, res.transactionId());
+        verify(transactionManager).rollback(any());
+    }
+
+    private static String hashOf(long from, long to, String amount) {
+        return ReflectionTestUtils.invokeMethod(
+                IdempotentTransferServiceImpl.class, "requestHash", from, to, new BigDecimal(amount));
+    }
+}
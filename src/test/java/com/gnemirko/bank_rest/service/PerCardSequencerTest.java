@@ -0,0 +1,105 @@
+package com.gnemirko.bank_rest.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PerCardSequencerTest {
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final PerCardSequencer sequencer = new PerCardSequencer(executor);
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void tasksOfOneCard_runInSubmissionOrder() throws Exception {
+        List<Integer> executed = Collections.synchronizedList(new ArrayList<>());
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            int n = i;
+            // разные вторые карты: порядок должен держаться по общей карте 1
+            futures.add(sequencer.submit(List.of(1L, 100L + n), () -> {
+                sleepRandomly();
+                executed.add(n);
+            }));
+        }
+        CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).get(30, TimeUnit.SECONDS);
+
+        List<Integer> expected = new ArrayList<>();
+        for (int i = 0; i < 200; i++) expected.add(i);
+        assertEquals(expected, executed);
+        assertEquals(0, sequencer.pendingCards());
+    }
+
+    @Test
+    void taskWaitsForBothOfItsCards() throws Exception {
+        CountDownLatch releaseA = new CountDownLatch(1);
+        List<String> executed = Collections.synchronizedList(new ArrayList<>());
+
+        sequencer.submit(List.of(1L), () -> {
+            await(releaseA);
+            executed.add("A");
+        });
+        sequencer.submit(List.of(2L), () -> executed.add("B"));
+        CompletableFuture<Void> both = sequencer.submit(List.of(2L, 1L), () -> executed.add("A->B"));
+
+        // перевод по карте 2 не ждёт чужую карту 1
+        awaitCondition(() -> executed.contains("B"));
+        assertFalse(both.isDone());
+
+        releaseA.countDown();
+        both.get(5, TimeUnit.SECONDS);
+        assertEquals(List.of("B", "A", "A->B"), executed);
+    }
+
+    @Test
+    void completedFuture_seesReleasedCards() throws Exception {
+        for (int i = 0; i < 1000; i++) {
+            sequencer.submit(List.of(1L, 2L), () -> {}).get(5, TimeUnit.SECONDS);
+            assertEquals(0, sequencer.pendingCards());
+        }
+    }
+
+    @Test
+    void failedTask_doesNotBreakTheChain() throws Exception {
+        CompletableFuture<Void> failed = sequencer.submit(List.of(1L), () -> { throw new IllegalStateException("boom"); });
+        CompletableFuture<Void> next = sequencer.submit(List.of(1L), () -> {});
+
+        next.get(5, TimeUnit.SECONDS);
+        assertTrue(failed.isCompletedExceptionally());
+    }
+
+    private static void sleepRandomly() {
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextInt(2));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void awaitCondition(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() > deadline) fail("condition not reached");
+            Thread.sleep(1);
+        }
+    }
+}
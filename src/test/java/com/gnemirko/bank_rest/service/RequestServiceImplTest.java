@@ -0,0 +1,49 @@
+package com.gnemirko.bank_rest.service;
+
+import com.gnemirko.bank_rest.entity.Card;
+import com.gnemirko.bank_rest.entity.CardStatus;
+import com.gnemirko.bank_rest.entity.Request;
+import com.gnemirko.bank_rest.entity.RequestState;
+import com.gnemirko.bank_rest.repository.CardRepository;
+import com.gnemirko.bank_rest.repository.RequestRepository;
+import com.gnemirko.bank_rest.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RequestServiceImplTest {
+
+    @Mock RequestRepository requestRepository;
+    @Mock UserRepository userRepository;
+    @Mock CardRepository cardRepository;
+    @Mock CardService cardService;
+
+    @InjectMocks RequestServiceImpl service;
+
+    @Test
+    void completingBlockRequest_blocksCardThroughCardService() {
+        Card card = new Card();
+        card.setId(10L);
+        Request request = new Request();
+        request.setId(5L);
+        request.setObject(card);
+        request.setOperation("block");
+        when(requestRepository.findById(5L)).thenReturn(Optional.of(request));
+        when(requestRepository.save(any(Request.class))).thenAnswer(inv -> inv.getArgument(0));
+
+        Request done = service.completeRequest(request);
+
+        assertEquals(RequestState.COMPLETE, done.getState());
+        verify(cardService).updateStatus(10L, CardStatus.BLOCKED);
+        verify(cardRepository, never()).save(any());
+    }
+}
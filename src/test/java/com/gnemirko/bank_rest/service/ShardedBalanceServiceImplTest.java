@@ -0,0 +1,111 @@
+package com.gnemirko.bank_rest.service;
+
+import com.gnemirko.bank_rest.entity.Card;
+import com.gnemirko.bank_rest.entity.CardBalanceShard;
+import com.gnemirko.bank_rest.entity.Money;
+import com.gnemirko.bank_rest.repository.CardBalanceShardRepository;
+import com.gnemirko.bank_rest.repository.CardRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ShardedBalanceServiceImplTest {
+
+    @Mock CardRepository cardRepository;
+    @Mock CardBalanceShardRepository shardRepository;
+
+    ShardedBalanceServiceImpl service;
+    Card hot;
+
+    @BeforeEach
+    void setUp() {
+        service = new ShardedBalanceServiceImpl(cardRepository, shardRepository);
+        hot = new Card();
+        hot.setId(7L);
+        hot.setBalanceShards(3);
+    }
+
+    @Test
+    void credit_updatesSingleShard() {
+        when(shardRepository.credit(eq(7L), anyInt(), anyLong())).thenReturn(1);
+
+        service.credit(hot, Money.of("10.00"));
+
+        ArgumentCaptor<Integer> shard = ArgumentCaptor.forClass(Integer.class);
+        verify(shardRepository, times(1)).credit(eq(7L), shard.capture(), eq(1000L));
+        assertTrue(shard.getValue() >= 0 && shard.getValue() < 3);
+    }
+
+    @Test
+    void refresh_dropsCardsNoLongerSharded() {
+        service.markSharded(7L);
+        service.markSharded(8L);
+        when(cardRepository.findShardedIds()).thenReturn(List.of(8L, 9L));
+
+        service.refresh();
+
+        assertFalse(service.isSharded(7L));
+        assertTrue(service.isSharded(8L));
+        assertTrue(service.isSharded(9L));
+    }
+
+    @Test
+    void debit_walksShardsUntilCovered() {
+        when(shardRepository.lockAll(7L)).thenReturn(List.of(
+                new Object[]{0, 1000L},
+                new Object[]{1, 0L},
+                new Object[]{2, 2500L}
+        ));
+
+        service.debit(hot, Money.of("30.00"));
+
+        ArgumentCaptor<Long> taken = ArgumentCaptor.forClass(Long.class);
+        verify(shardRepository, atLeastOnce()).debit(eq(7L), anyInt(), taken.capture());
+        assertEquals(3000L, taken.getAllValues().stream().mapToLong(Long::longValue).sum());
+        verify(shardRepository, never()).debit(eq(7L), eq(1), anyLong());
+    }
+
+    @Test
+    void debit_insufficientAcrossShards_changesNothing() {
+        when(shardRepository.lockAll(7L)).thenReturn(List.of(
+                new Object[]{0, 1000L},
+                new Object[]{1, 500L},
+                new Object[]{2, 500L}
+        ));
+
+        var ex = assertThrows(IllegalArgumentException.class, () -> service.debit(hot, Money.of("20.01")));
+
+        assertEquals("Insufficient funds", ex.getMessage());
+        verify(shardRepository, never()).debit(any(), anyInt(), anyLong());
+    }
+
+    @Test
+    void enable_movesBalanceToFirstShard_andCountOnlyGrows() {
+        Card card = new Card();
+        card.setId(8L);
+        card.setBalance(Money.of("42.00"));
+
+        service.enable(card, 4);
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<CardBalanceShard>> shards = ArgumentCaptor.forClass(List.class);
+        verify(shardRepository).saveAll(shards.capture());
+        assertEquals(4, shards.getValue().size());
+        assertEquals(Money.of("42.00"), shards.getValue().get(0).getBalance());
+        assertTrue(shards.getValue().stream().skip(1).allMatch(s -> s.getBalance().signum() == 0));
+        assertEquals(4, card.getBalanceShards());
+        assertEquals(Money.of("42.00"), card.getBalance());
+        assertTrue(service.isSharded(8L));
+        assertThrows(IllegalArgumentException.class, () -> service.enable(card, 2));
+    }
+}
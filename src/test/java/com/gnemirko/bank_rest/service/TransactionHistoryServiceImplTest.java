@@ -0,0 +1,104 @@
+package com.gnemirko.bank_rest.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gnemirko.bank_rest.repository.CardRepository;
+import com.gnemirko.bank_rest.util.SeekCursor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.security.access.AccessDeniedException;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TransactionHistoryServiceImplTest {
+
+    @Mock CardRepository cardRepository;
+    @Mock JdbcTemplate jdbcTemplate;
+    @Mock ResultSet rs;
+
+    final ObjectMapper objectMapper = new ObjectMapper();
+    TransactionHistoryServiceImpl service;
+
+    @BeforeEach
+    void setUp() {
+        service = new TransactionHistoryServiceImpl(cardRepository, jdbcTemplate, objectMapper);
+    }
+
+    /** Отдаёт handler-у {@code rows} строк с id 100, 99, 98... */
+    private void stubRows(int rows) throws Exception {
+        lenient().when(rs.getLong("id")).thenReturn(100L, 99L, 98L, 97L);
+        lenient().when(rs.getTimestamp("created_at")).thenAnswer(inv -> Timestamp.from(Instant.parse("2025-01-01T00:00:00Z")));
+        lenient().when(rs.getLong("from_card_id")).thenReturn(10L);
+        lenient().when(rs.getLong("to_card_id")).thenReturn(20L);
+        lenient().when(rs.getBigDecimal("amount")).thenReturn(new BigDecimal("5.00"));
+        lenient().when(rs.getString("status")).thenReturn("COMPLETED");
+        doAnswer(inv -> {
+            RowCallbackHandler handler = inv.getArgument(1);
+            for (int i = 0; i < rows; i++) handler.processRow(rs);
+            return null;
+        }).when(jdbcTemplate).query(anyString(), any(RowCallbackHandler.class), any(Object[].class));
+    }
+
+    @Test
+    void fullPage_writesItems_andCursorOfLastWrittenRow() throws Exception {
+        stubRows(3);
+        var out = new ByteArrayOutputStream();
+
+        service.writeUserHistory(1L, null, 2, out);
+
+        JsonNode page = objectMapper.readTree(out.toByteArray());
+        assertEquals(2, page.get("items").size());
+        assertEquals(100L, page.get("items").get(0).get("transactionId").asLong());
+        SeekCursor next = SeekCursor.decode(page.get("nextCursor").asText());
+        assertEquals(99L, next.id());
+    }
+
+    @Test
+    void lastPage_hasNoCursor() throws Exception {
+        stubRows(1);
+        var out = new ByteArrayOutputStream();
+
+        service.writeCardHistory(10L, SeekCursor.of(Instant.now(), 500L), 2, out);
+
+        JsonNode page = objectMapper.readTree(out.toByteArray());
+        assertEquals(1, page.get("items").size());
+        assertFalse(page.has("nextCursor"));
+    }
+
+    @Test
+    void cardHistory_seeksBothDirections_fromCursor() throws Exception {
+        stubRows(0);
+
+        service.writeCardHistory(10L, SeekCursor.of(Instant.now(), 500L), 20, new ByteArrayOutputStream());
+
+        ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+        verify(jdbcTemplate).query(sql.capture(), any(RowCallbackHandler.class), any(Object[].class));
+        assertTrue(sql.getValue().contains("from_card_id = ?"));
+        assertTrue(sql.getValue().contains("to_card_id = ?"));
+        assertEquals(2, sql.getValue().split("\\(t.created_at, t.id\\) < \\(\\?, \\?\\)", -1).length - 1);
+        assertFalse(sql.getValue().toLowerCase().contains("offset"));
+    }
+
+    @Test
+    void foreignCard_forbidden() {
+        when(cardRepository.findOwnerIdById(10L)).thenReturn(Optional.of(2L));
+        assertThrows(AccessDeniedException.class, () -> service.checkCardAccess(1L, 10L));
+    }
+}
@@ -0,0 +1,16 @@
+package com.gnemirko.bank_rest.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class CardSpecificationTest {
+
+    @Test
+    void likeWildcardsFromInput_areEscaped() {
+        assertEquals("100\\%", CardSpecification.escapeLike("100%"));
+        assertEquals("a\\_b", CardSpecification.escapeLike("a_b"));
+        assertEquals("c:\\\\x", CardSpecification.escapeLike("c:\\x"));
+        assertEquals("ivan", CardSpecification.escapeLike("ivan"));
+    }
+}
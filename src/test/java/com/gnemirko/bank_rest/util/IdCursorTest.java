@@ -0,0 +1,27 @@
+package com.gnemirko.bank_rest.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IdCursorTest {
+
+    @Test
+    void roundTrip() {
+        assertEquals(9_000_000_001L, IdCursor.decode(IdCursor.encode(9_000_000_001L)));
+    }
+
+    @Test
+    void blankCursor_meansFirstPage() {
+        assertNull(IdCursor.decode(null));
+        assertNull(IdCursor.decode(""));
+    }
+
+    @Test
+    void foreignCursor_isRejected() {
+        // курсор истории переводов сюда не подходит
+        String historyCursor = SeekCursor.of(java.time.Instant.now(), 5L).encode();
+        assertThrows(IllegalArgumentException.class, () -> IdCursor.decode(historyCursor));
+        assertThrows(IllegalArgumentException.class, () -> IdCursor.decode("!!!"));
+    }
+}
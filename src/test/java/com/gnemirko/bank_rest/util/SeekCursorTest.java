@@ -0,0 +1,32 @@
+package com.gnemirko.bank_rest.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SeekCursorTest {
+
+    @Test
+    void roundTrip_keepsMicrosecondPrecision() {
+        SeekCursor cursor = SeekCursor.of(Instant.parse("2025-03-01T10:15:30.123456789Z"), 4242L);
+
+        SeekCursor decoded = SeekCursor.decode(cursor.encode());
+
+        assertEquals(Instant.parse("2025-03-01T10:15:30.123456Z"), decoded.createdAt());
+        assertEquals(4242L, decoded.id());
+    }
+
+    @Test
+    void blankCursor_meansFirstPage() {
+        assertNull(SeekCursor.decode(null));
+        assertNull(SeekCursor.decode(" "));
+    }
+
+    @Test
+    void garbage_isRejected() {
+        assertThrows(IllegalArgumentException.class, () -> SeekCursor.decode("not-a-cursor"));
+        assertThrows(IllegalArgumentException.class, () -> SeekCursor.decode("!!!"));
+    }
+}